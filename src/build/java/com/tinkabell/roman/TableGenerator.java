@@ -0,0 +1,291 @@
+package com.tinkabell.roman;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generate RomanTables.java, the parse and format tables for 1 to 9999,
+ * so they don't have to be worked out each time the classes are initialised.
+ *
+ * This runs in the generate-sources phase, before anything is compiled,
+ * as a single file program (java TableGenerator.java outputDirectory),
+ * so it can't use any of the project classes and works everything out
+ * for itself.
+ *
+ * All the tables are written as String constants, which live in the
+ * constant pool and cost nothing to initialise, rather than as arrays,
+ * which would be filled in element by element by the class initialiser.
+ * As a constant can't be more than 64k, the format table is split
+ * into a chunk per thousand.
+ */
+public class TableGenerator {
+
+    private static final String numerals = "IVXLCDM";
+
+    // character classes: the numeral index (0 to 6), whitespace or other
+    private static final int WHITESPACE = 7;
+    private static final int OTHER = 8;
+    private static final int CLASSES = 9;
+
+    // what we are looking for, as RomanNumber.NextNumeral
+    private static final int ONE = 0;
+    private static final int ONE_FIVE = 1;
+    private static final int ONE_FIVE_TEN = 2;
+
+    /**
+     * A state of the lenient grammar of RomanNumber.nextNumeral(),
+     * plus whether we have seen a numeral or trailing whitespace.
+     */
+    private record State(int order, int lookingFor, int digit, boolean started, boolean trailing) {}
+
+    /**
+     * The outcome of a character: the new state (null if invalid)
+     * and how much it adds to the value.
+     */
+    private record Step(State state, int delta) {}
+
+    private static int power(int order) {
+        int power = 1;
+        for (int i = 0; i < order; i++)
+            power *= 10;
+        return power;
+    }
+
+    private static Step step(State state, int c) {
+        if (c == WHITESPACE)
+            return new Step(new State(state.order, state.lookingFor, state.digit, state.started, state.started), 0);
+        if (c == OTHER || state.trailing)
+            return new Step(null, 0);
+        int order = state.order;
+        int lookingFor = state.lookingFor;
+        int digit = state.digit;
+        while (true) {
+            if (order < 0)
+                return new Step(null, 0);
+            int one = 2 * order;
+            int five = one + 1;
+            int ten = one + 2;
+            int before = order == state.order? state.digit: 0; // value already counted at this order
+            switch (lookingFor) {
+                case ONE -> {
+                    if (c > one)
+                        return new Step(null, 0);
+                    if (c == one) {
+                        if (digit + 1 >= 10)
+                            return new Step(null, 0);
+                        return new Step(new State(order, ONE, digit + 1, true, false),
+                                (digit + 1 - before) * power(order));
+                    }
+                }
+                case ONE_FIVE -> {
+                    if (c > five)
+                        return new Step(null, 0);
+                    if (c == one)
+                        return new Step(new State(order, ONE_FIVE_TEN, 1, true, false), (1 - before) * power(order));
+                    if (c == five)
+                        return new Step(new State(order, ONE, 5, true, false), (5 - before) * power(order));
+                }
+                default -> {
+                    if (c > ten)
+                        return new Step(null, 0);
+                    if (c == one)
+                        return new Step(new State(order, ONE, 2, true, false), (2 - before) * power(order));
+                    if (c == five || c == ten) {
+                        int nine = c == ten? 9: 4;
+                        return new Step(new State(order - 1, ONE_FIVE, 0, true, false), (nine - before) * power(order));
+                    }
+                }
+            }
+            order--;
+            lookingFor = ONE_FIVE;
+            digit = 0;
+        }
+    }
+
+    private static String format(int value) {
+        String[][] orders = {
+                {"I", "V", "X"},
+                {"X", "L", "C"},
+                {"C", "D", "M"}
+        };
+        StringBuilder builder = new StringBuilder("M".repeat(value / 1000));
+        for (int order = 2; order >= 0; order--) {
+            int digit = (value / power(order)) % 10;
+            String[] numeral = orders[order];
+            if (digit == 9)
+                builder.append(numeral[0]).append(numeral[2]);
+            else if (digit == 4)
+                builder.append(numeral[0]).append(numeral[1]);
+            else
+                builder.append(digit >= 5? numeral[1]: "").append(numeral[0].repeat(digit % 5));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Escape a string as a Java literal.
+     * Unicode escapes are processed before anything else by the compiler,
+     * so line ends, quotes and backslashes must use the ordinary escapes.
+     */
+    private static String literal(CharSequence s) {
+        StringBuilder builder = new StringBuilder("\"");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\n')
+                builder.append("\\n");
+            else if (c == '\r')
+                builder.append("\\r");
+            else if (c == '"' || c == '\\')
+                builder.append('\\').append(c);
+            else if (c >= ' ' && c < 127)
+                builder.append(c);
+            else
+                builder.append(String.format("\\u%04x", (int) c));
+        }
+        return builder.append('"').toString();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Path.of(args[0], "com", "tinkabell", "roman");
+
+        // character classes for ascii
+        StringBuilder classes = new StringBuilder();
+        for (int c = 0; c < 128; c++) {
+            int index = numerals.indexOf(Character.toUpperCase(c));
+            classes.append((char) (index >= 0? index: c <= ' '? WHITESPACE: OTHER));
+        }
+
+        // number the states as we find them, with 0 as the dead state
+        Map<State, Integer> ids = new HashMap<>();
+        List<State> states = new ArrayList<>();
+        states.add(null);
+        State start = new State(3, ONE_FIVE, 0, false, false);
+        ids.put(start, 1);
+        states.add(start);
+        StringBuilder next = new StringBuilder();
+        StringBuilder delta = new StringBuilder();
+        for (int c = 0; c < CLASSES; c++) {
+            // the dead state stays dead
+            next.append((char) 0);
+            delta.append((char) 0);
+        }
+        for (int id = 1; id < states.size(); id++) {
+            for (int c = 0; c < CLASSES; c++) {
+                Step step = step(states.get(id), c);
+                int target = 0;
+                if (step.state != null) {
+                    target = ids.computeIfAbsent(step.state, state -> {
+                        states.add(state);
+                        return states.size() - 1;
+                    });
+                }
+                next.append((char) target);
+                delta.append((char) step.delta);
+            }
+        }
+        StringBuilder accept = new StringBuilder();
+        for (State state : states)
+            accept.append(state != null && state.started? '1': '0');
+
+        // format table, a chunk per thousand with the offset of each value in it
+        List<String> chunks = new ArrayList<>();
+        List<String> offsets = new ArrayList<>();
+        for (int thousand = 0; thousand < 10; thousand++) {
+            StringBuilder chunk = new StringBuilder();
+            StringBuilder offset = new StringBuilder();
+            for (int value = thousand * 1000; value < (thousand + 1) * 1000; value++) {
+                offset.append((char) chunk.length());
+                if (value > 0)
+                    chunk.append(format(value));
+            }
+            offset.append((char) chunk.length());
+            chunks.add(literal(chunk));
+            offsets.add(literal(offset));
+        }
+
+        String source = """
+                package com.tinkabell.roman;
+
+                /**
+                 * Parse and format tables for roman numbers from 1 to 9999.
+                 * Generated by TableGenerator at build time: do not edit!
+                 */
+                final class RomanTables {
+
+                    static final int CLASSES = %d;
+                    static final int START = 1;
+
+                    // character class of each ascii character
+                    static final String CLASS = %s;
+                    // next state for each state and character class (0 is invalid)
+                    static final String NEXT = %s;
+                    // amount added to the value for each state and character class
+                    static final String DELTA = %s;
+                    // '1' if the state is a complete roman number
+                    static final String ACCEPT = %s;
+
+                    // canonical numerals of each value, a chunk per thousand
+                    private static final String[] NUMERALS = {
+                            %s
+                    };
+                    // offset of each value within its chunk, plus the end of the chunk
+                    private static final String[] OFFSETS = {
+                            %s
+                    };
+
+                    private RomanTables() {
+                        // only static methods
+                    }
+
+                    /**
+                     * Parse as RomanNumber.parse() would.
+                     *
+                     * @param s - roman numerals to parse
+                     * @return the value, or 0 if not valid
+                     */
+                    static int parse(CharSequence s) {
+                        int state = START;
+                        int value = 0;
+                        for (int i = 0, length = s.length(); i < length && state != 0; i++) {
+                            char c = s.charAt(i);
+                            int index = state * CLASSES + (c < 128? CLASS.charAt(c): %d);
+                            state = NEXT.charAt(index);
+                            value += DELTA.charAt(index);
+                        }
+                        return ACCEPT.charAt(state) == '1'? value: 0;
+                    }
+
+                    /**
+                     * @param value - 1 to 9999
+                     * @return the canonical numerals of the value
+                     */
+                    static String format(int value) {
+                        String offsets = OFFSETS[value / 1000];
+                        int index = value %% 1000;
+                        return NUMERALS[value / 1000].substring(offsets.charAt(index), offsets.charAt(index + 1));
+                    }
+                }
+                """.formatted(
+                CLASSES,
+                literal(classes),
+                literal(next),
+                literal(delta),
+                literal(accept),
+                String.join(",\n            ", chunks),
+                String.join(",\n            ", offsets),
+                OTHER);
+
+        // only write it if it has changed, so it isn't compiled again for nothing
+        Path file = directory.resolve("RomanTables.java");
+        if (Files.exists(file) && Files.readString(file, StandardCharsets.UTF_8).equals(source))
+            return;
+        Files.createDirectories(directory);
+        Files.writeString(file, source, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,378 @@
+package com.tinkabell.roman;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A variant of RomanNumeral where the whole state of a sequence of
+ * numerals is packed into a single long, so parsing allocates nothing.
+ *
+ * The state has the same parts as a RomanNumeral:
+ *    bits 0-15   digits - four 4 bit digits (units first)
+ *    bits 16-18  ofOrder + 1 - highest order of this number (0 if none)
+ *    bits 19-20  addOrder - the order at which we can add
+ *    bits 21-22  canJoinTo - what we can accept next (as NumeralType)
+ *    bit 23      areOnes - are all "one" numerals
+ *    bits 24-26  error - why this is not valid (0 if it is)
+ *    bits 27-42  errorPosition - index of the first bad numeral
+ *    bits 43-58  length - number of characters
+ * Both errorPosition and length stop at their largest (65535), rather
+ * than spill into the next field.
+ * Rather than keeping the good numerals and the bad one, the position
+ * of the error is kept, so the message can be made from the input.
+ *
+ * The state of each single character is precomputed, and combine() does
+ * what RomanNumeral.append() does, but to longs.
+ * It is associative, so a parse can be a (parallel) reduce, and gives the
+ * same validity and value however the numerals are grouped, but which
+ * numeral is reported as bad can depend on where the groups join.
+ *
+ * Unlike RomanNumeral:
+ *    a bad first character is not mistaken for the "unity" numeral,
+ *    so can't be ignored
+ *    five ones (IIIII) are not mistaken for a five when appended,
+ *    which append() only gets away with as it appends single numerals
+ */
+public final class PackedRomanNumeral {
+
+    private static final int DIGITS_MASK = 0xFFFF;
+    private static final int OF_ORDER_SHIFT = 16;
+    private static final int ADD_ORDER_SHIFT = 19;
+    private static final int CAN_JOIN_SHIFT = 21;
+    private static final int ARE_ONES_SHIFT = 23;
+    private static final int ERROR_SHIFT = 24;
+    private static final int POSITION_SHIFT = 27;
+    private static final int LENGTH_SHIFT = 43;
+    private static final int MAX_POSITION = 0xFFFF;
+    private static final int MAX_LENGTH = 0xFFFF;
+
+    // what we can accept next
+    private static final int NOTHING = 0; // nothing more at this order
+    private static final int ONE = 1; // one's
+    private static final int ONE_FIVE = 2; // one or five
+    private static final int ONE_FIVE_TEN = 3; // one or five or ten
+
+    // errors
+    private static final int NONE = 0;
+    private static final int INVALID_CHARACTER = 1;
+    private static final int NOT_VALID = 2;
+    private static final int REPEATS = 3;
+    private static final int EMPTY = 4;
+    private static final String[] messages = {
+            "",
+            " is an invalid character for a Roman Numeral",
+            " is not valid at this point in the roman numeral",
+            " repeats too many times",
+            "Can't have an empty Roman Numeral"
+    };
+
+    private static final int maxOrder = 3;  // to thousands
+    private static final String numerals = "IVXLCDM";
+
+    /**
+     * The "unity" numeral: nothing at all.
+     */
+    public static final long UNITY = pack(0, -1, maxOrder, ONE_FIVE, false, EMPTY, 0, 0);
+
+    // a bad character
+    private static final long INVALID = pack(0, -1, maxOrder, ONE_FIVE, false, INVALID_CHARACTER, 0, 1);
+
+    // state of each ascii character (either case)
+    private static final long[] states = new long[128];
+
+    static {
+        for (int c = 0; c < states.length; c++) {
+            int index = numerals.indexOf(Character.toUpperCase(c));
+            if (index < 0) {
+                states[c] = INVALID;
+            } else {
+                int order = index / 2; // order of this numeral (power of 10)
+                boolean isOne = (index % 2) == 0; // even ones are one's and odd ones are 'five's
+                states[c] = pack((isOne? 1: 5) << (4 * order), order, order,
+                        isOne? ONE_FIVE_TEN: ONE, isOne, NONE, 0, 1);
+            }
+        }
+    }
+
+    private PackedRomanNumeral() {
+        // only static methods
+    }
+
+    private static long pack(int digits, int ofOrder, int addOrder, int canJoinTo, boolean areOnes,
+                             int error, int position, int length) {
+        return (digits & DIGITS_MASK) |
+                (long) (ofOrder + 1) << OF_ORDER_SHIFT |
+                (long) addOrder << ADD_ORDER_SHIFT |
+                (long) canJoinTo << CAN_JOIN_SHIFT |
+                (areOnes? 1L: 0L) << ARE_ONES_SHIFT |
+                (long) error << ERROR_SHIFT |
+                (long) Math.min(position, MAX_POSITION) << POSITION_SHIFT |
+                (long) Math.min(length, MAX_LENGTH) << LENGTH_SHIFT;
+    }
+
+    /**
+     * @param state - of some valid numerals
+     * @return the four 4 bit digits of their value (units first)
+     */
+    static int digits(long state) {
+        return (int) state & DIGITS_MASK;
+    }
+
+    private static int digit(int digits, int order) {
+        return (digits >>> (4 * order)) & 0xF;
+    }
+
+    private static int withDigit(int digits, int order, int digit) {
+        return (digits & ~(0xF << (4 * order))) | (digit & 0xF) << (4 * order);
+    }
+
+    private static int ofOrder(long state) {
+        return (int) (state >>> OF_ORDER_SHIFT & 0x7) - 1;
+    }
+
+    private static int addOrder(long state) {
+        return (int) (state >>> ADD_ORDER_SHIFT & 0x3);
+    }
+
+    private static int canJoinTo(long state) {
+        return (int) (state >>> CAN_JOIN_SHIFT & 0x3);
+    }
+
+    private static boolean areOnes(long state) {
+        return (state >>> ARE_ONES_SHIFT & 1) != 0;
+    }
+
+    private static int error(long state) {
+        return (int) (state >>> ERROR_SHIFT & 0x7);
+    }
+
+    private static int position(long state) {
+        return (int) (state >>> POSITION_SHIFT & MAX_POSITION);
+    }
+
+    private static int length(long state) {
+        return (int) (state >>> LENGTH_SHIFT & MAX_LENGTH);
+    }
+
+    /**
+     * @param c - a character
+     * @return the state of that one character
+     */
+    public static long of(int c) {
+        if (c >= states.length)
+            c = Character.toUpperCase(c);
+        return c < states.length? states[c]: INVALID;
+    }
+
+    /**
+     * Append the right numerals to the left ones, as RomanNumeral.append().
+     *
+     * @param left - earlier numerals
+     * @param right - following numerals
+     * @return the combined numerals
+     */
+    public static long combine(long left, long right) {
+        if (left == UNITY)
+            return right;
+        if (right == UNITY)
+            return left;
+        int leftLength = length(left);
+        int length = leftLength + length(right);
+        if (error(left) != NONE)
+            return (left & ~((long) MAX_LENGTH << LENGTH_SHIFT)) | (long) Math.min(length, MAX_LENGTH) << LENGTH_SHIFT;
+
+        int digits = digits(left);
+        int ofOrder = ofOrder(left);
+        int addOrder = addOrder(left);
+        int canJoinTo = canJoinTo(left);
+        boolean areOnes = areOnes(left);
+        int nextDigits = digits(right);
+        int nextOfOrder = ofOrder(right);
+
+        // "properties" of the next numerals at our addOrder
+        boolean isSmaller = addOrder > nextOfOrder;
+        boolean nextIsFive = addOrder == nextOfOrder && digit(nextDigits, nextOfOrder) == 5 && !areOnes(right);
+        boolean nextAreOnes = addOrder == nextOfOrder && areOnes(right);
+        boolean nextIsTen = addOrder < maxOrder && addOrder == nextOfOrder - 1 &&
+                digit(nextDigits, addOrder) == 0 && digit(nextDigits, nextOfOrder) == 1;
+
+        int ours = digit(digits, addOrder); // our digit at addOrder
+        int theirs = digit(nextDigits, addOrder); // the next numerals' digit to add to it
+        if (isSmaller) {
+            // can always add a smaller number
+            return overlay(digits, ofOrder, addOrder, canJoinTo, areOnes, right, nextDigits, nextOfOrder, leftLength, length);
+        } else if (canJoinTo == ONE && nextAreOnes) {
+            // can add what we are expecting
+        } else if (canJoinTo == ONE_FIVE && nextIsFive) {
+            // after a five want ones
+            return overlay(digits, ofOrder, addOrder, ONE, areOnes, right, nextDigits, nextOfOrder, leftLength, length);
+        } else if (canJoinTo == ONE_FIVE && nextAreOnes) {
+            canJoinTo = ONE; // after a one want ones
+        } else if (canJoinTo == ONE_FIVE_TEN && nextIsTen) {
+            canJoinTo = NOTHING; // after a nine can't join at this order
+            // make the next numeral's one a ten at our order
+            nextDigits = withDigit(nextDigits, nextOfOrder, 0);
+            nextOfOrder = addOrder;
+            theirs = 10;
+            // our one and next numeral's ten, will make a nine
+            ours = -ours;
+        } else if (canJoinTo == ONE_FIVE_TEN && nextIsFive) {
+            canJoinTo = NOTHING; // after a four can't join at this order
+            // our one and next numeral's five, will make a four
+            ours = -ours;
+        } else if (canJoinTo == ONE_FIVE_TEN && nextAreOnes) {
+            canJoinTo = ONE; // after a one want ones
+        } else {
+            // next numeral is out of sequence
+            return pack(digits, ofOrder, addOrder, canJoinTo, areOnes, NOT_VALID, leftLength, length);
+        }
+
+        // add on the most significant digit of the next numerals
+        if (addOrder == ofOrder)
+            areOnes = areOnes && nextOfOrder == addOrder && areOnes(right);
+        int sum = ours + theirs;
+        nextDigits = withDigit(nextDigits, addOrder, 0);
+        while (nextOfOrder >= 0 && digit(nextDigits, nextOfOrder) == 0)
+            nextOfOrder--; // skip any zero most significant digits
+        if (sum >= 10)
+            return pack(digits, ofOrder, addOrder, canJoinTo, areOnes, REPEATS, leftLength, length);
+        digits = withDigit(digits, addOrder, sum);
+        return overlay(digits, ofOrder, addOrder, canJoinTo, areOnes, right, nextDigits, nextOfOrder, leftLength, length);
+    }
+
+    /**
+     * Copy the rest of the next numerals into ours, as RomanNumeral.overlay().
+     */
+    private static long overlay(int digits, int ofOrder, int addOrder, int canJoinTo, boolean areOnes,
+                                long right, int nextDigits, int nextOfOrder, int leftLength, int length) {
+        int nextAddOrder = addOrder(right);
+        for (int order = nextAddOrder; order <= nextOfOrder; order++)
+            digits = withDigit(digits, order, digit(nextDigits, order));
+        int error = error(right);
+        int position = error == NONE? 0: leftLength + position(right);
+        if (addOrder > nextAddOrder) {
+            addOrder = nextAddOrder;
+            canJoinTo = canJoinTo(right);
+        }
+        return pack(digits, ofOrder, addOrder, canJoinTo, areOnes, error, position, length);
+    }
+
+    /**
+     * @param state - of some numerals
+     * @return true if the numerals are a valid roman number
+     */
+    public static boolean isValid(long state) {
+        return error(state) == NONE;
+    }
+
+    /**
+     * @param state - of some valid numerals
+     * @return the value of the numerals
+     */
+    public static int value(long state) {
+        int digits = digits(state);
+        int value = 0;
+        for (int order = maxOrder; order >= 0; order--)
+            value = value * 10 + digit(digits, order);
+        return value;
+    }
+
+    /**
+     * Make the message for an invalid state, as RomanNumeral.getValue() would.
+     *
+     * @param state - of the invalid numerals
+     * @param numerals - the (trimmed and uppercase) numerals
+     * @return the message
+     */
+    static String message(long state, String numerals) {
+        int error = error(state);
+        if (error == EMPTY)
+            return messages[error];
+        int position = position(state);
+        String message = numerals.charAt(position) + messages[error];
+        if (position > 0)
+            message += " after " + numerals.substring(0, position);
+        return message;
+    }
+
+    /**
+     * Combine the numerals between the offsets, ignoring surrounding
+     * whitespace (anything up to a space), and stopping at the first error.
+     * Nothing is allocated.
+     *
+     * @param s - containing the numerals
+     * @param from - offset of the first character
+     * @param to - offset after the last character
+     * @return the state of the numerals (positions are from the first non-whitespace)
+     */
+    public static long fold(@NotNull CharSequence s, int from, int to) {
+        while (from < to && s.charAt(from) <= ' ')
+            from++;
+        while (to > from && s.charAt(to - 1) <= ' ')
+            to--;
+        long state = UNITY;
+        for (int i = from; i < to && (state == UNITY || isValid(state)); i++)
+            state = combine(state, of(s.charAt(i)));
+        return state;
+    }
+
+    /**
+     * Combine the numerals between the offsets, as fold(CharSequence, int, int).
+     */
+    public static long fold(char @NotNull [] chars, int from, int to) {
+        while (from < to && chars[from] <= ' ')
+            from++;
+        while (to > from && chars[to - 1] <= ' ')
+            to--;
+        long state = UNITY;
+        for (int i = from; i < to && (state == UNITY || isValid(state)); i++)
+            state = combine(state, of(chars[i]));
+        return state;
+    }
+
+    /**
+     * Combine the ascii numerals between the offsets, as fold(CharSequence, int, int).
+     */
+    public static long fold(byte @NotNull [] bytes, int from, int to) {
+        while (from < to && (bytes[from] & 0xFF) <= ' ')
+            from++;
+        while (to > from && (bytes[to - 1] & 0xFF) <= ' ')
+            to--;
+        long state = UNITY;
+        for (int i = from; i < to && (state == UNITY || isValid(state)); i++)
+            state = combine(state, of(bytes[i] & 0xFF));
+        return state;
+    }
+
+    /**
+     * Combine the ascii numerals between the (absolute) offsets,
+     * as fold(CharSequence, int, int).
+     */
+    public static long fold(@NotNull ByteBuffer bytes, int from, int to) {
+        while (from < to && (bytes.get(from) & 0xFF) <= ' ')
+            from++;
+        while (to > from && (bytes.get(to - 1) & 0xFF) <= ' ')
+            to--;
+        long state = UNITY;
+        for (int i = from; i < to && (state == UNITY || isValid(state)); i++)
+            state = combine(state, of(bytes.get(i) & 0xFF));
+        return state;
+    }
+
+    /**
+     * Parse the string argument as an unsigned roman number,
+     * accepting the same as RomanNumeral.parse() (but not a bad first character).
+     * Nothing is allocated unless it is invalid.
+     *
+     * @param s - a String containing the int representation to be parsed
+     * @return the integer value represented by the argument in decimal
+     * @throws NumberFormatException - if the string does not contain a parsable integer
+     */
+    public static int parse(@NotNull CharSequence s) throws NumberFormatException {
+        long state = fold(s, 0, s.length());
+        if (!isValid(state))
+            throw new NumberFormatException(message(state, s.toString().trim().toUpperCase()));
+        return value(state);
+    }
+}
@@ -0,0 +1,523 @@
+package com.tinkabell.roman;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decompress a gzip file, decompressing the members in parallel
+ * if it has several (as made by concatenating gzip files).
+ *
+ * Gzip has no index, so the only way to be sure where a member ends
+ * is to decompress it.
+ * Once a second member has been found, every place ahead that looks
+ * like the start of a member (the magic number, deflate method and no
+ * reserved flags) is a candidate and is decompressed speculatively,
+ * with up to a window of candidates in flight.
+ * The file is only searched for candidates as far as is needed to keep
+ * the window full, and not at all until there is a second member, so a
+ * file of a single member is just decompressed.
+ * A candidate is only used if the previous member ended exactly where it
+ * starts, and its CRC and size are checked against its trailer.
+ * Candidates that are really part of compressed data are thrown away.
+ * As GZIPInputStream does, anything after a member that isn't the
+ * start of another one is ignored.
+ *
+ * Members are decompressed in chunks, and each one keeps going while
+ * the chunks decompressed but not yet read, by all the members in the
+ * window, fit in a shared budget, so members ahead of the reader keep
+ * decompressing however big the one being read is.
+ * Each member may also always have a few chunks of its own, so the one
+ * being read never waits for the others to be read.
+ * Decompressing stops when neither has room, until chunks have been read,
+ * so memory is bounded by the window whatever the size of the members or
+ * of the file.
+ * Headers may be any length, and one that looks like a member's, right
+ * where the previous member ends, but can't be read, is an error.
+ * The file is read at long offsets, so it can be any size.
+ */
+class ParallelGzipInputStream extends InputStream {
+
+    // gzip header flags
+    private static final int FHCRC = 0x02;
+    private static final int FEXTRA = 0x04;
+    private static final int FNAME = 0x08;
+    private static final int FCOMMENT = 0x10;
+    private static final int RESERVED = 0xE0;
+
+    private static final int CHUNK_SIZE = RomanFileConverter.BLOCK_SIZE;
+    private static final int MAX_CHUNKS = 4; // decompressed, but not read yet, each member may always have
+    private static final int HEADER_READ = 512; // bytes read at a time while reading a header
+    private static final long BUDGET_PER_MEMBER = 16L * CHUNK_SIZE; // of the budget shared by the window
+
+    /**
+     * A member, or a candidate for one, decompressed a few chunks at a
+     * time on the executor.
+     */
+    private final class Member implements Runnable {
+        final long start; // offset of its header
+        private final ArrayDeque<byte[]> chunks = new ArrayDeque<>(); // decompressed, but not read
+        private final CRC32 crc = new CRC32();
+        private Inflater inflater;
+        private byte[] input; // compressed data being inflated
+        private long data; // offset of the compressed data
+        private long next; // offset of the compressed data to read next
+        private boolean running; // on the executor
+        private boolean finished; // all decompressed and checked
+        private boolean cancelled; // not wanted
+        private boolean notMember; // the header wasn't one
+        private IOException failure;
+        private long end = -1; // offset just after its trailer
+        private ByteBuffer headerBytes; // part of the file the header is read through
+        private long headerAt; // offset of headerBytes
+
+        Member(long start) {
+            this.start = start;
+        }
+
+        /**
+         * Decompress some more, if wanted and not already.
+         */
+        synchronized void resume() {
+            if (!running && !finished && !cancelled && failure == null && !notMember && hasRoom()) {
+                running = true;
+                executor.execute(this);
+            }
+        }
+
+        /**
+         * @return true if there is room for another chunk, of its own or in the budget
+         */
+        private synchronized boolean hasRoom() {
+            return chunks.size() < MAX_CHUNKS || buffered.get() < budget;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            discard();
+            if (!running)
+                release();
+        }
+
+        /**
+         * Throw away the chunks not read, giving them back to the budget.
+         */
+        private synchronized void discard() {
+            long bytes = 0;
+            for (byte[] chunk : chunks)
+                bytes += chunk.length;
+            chunks.clear();
+            made(-bytes);
+        }
+
+        private void release() {
+            if (inflater != null)
+                inflater.end();
+            inflater = null;
+            input = null;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (inflater == null && !header())
+                    return;
+                while (true) {
+                    synchronized (this) {
+                        if (cancelled)
+                            return;
+                        if (!hasRoom()) {
+                            waiting.add(this); // to be resumed when room is made
+                            return;
+                        }
+                    }
+                    if (inflater.needsInput()) {
+                        int n = read(ByteBuffer.wrap(input), next);
+                        if (n <= 0)
+                            throw new IOException("Truncated gzip member at offset " + start);
+                        inflater.setInput(input, 0, n);
+                        next += n;
+                    }
+                    byte[] chunk = new byte[CHUNK_SIZE];
+                    int n = inflater.inflate(chunk);
+                    if (n > 0) {
+                        crc.update(chunk, 0, n);
+                        synchronized (this) {
+                            chunks.add(n == chunk.length? chunk: Arrays.copyOf(chunk, n));
+                            made(n);
+                            notifyAll();
+                        }
+                    }
+                    if (inflater.finished()) {
+                        trailer();
+                        return;
+                    }
+                    if (n == 0 && inflater.needsDictionary())
+                        throw new IOException("Corrupt gzip member at offset " + start);
+                }
+            } catch (IOException e) {
+                fail(e);
+            } catch (DataFormatException e) {
+                fail(new IOException("Corrupt gzip member at offset " + start, e));
+            } finally {
+                synchronized (this) {
+                    running = false;
+                    if (cancelled || finished || failure != null || notMember)
+                        release();
+                    notifyAll();
+                }
+                resume(); // in case room was made after we stopped for the want of it
+            }
+        }
+
+        private synchronized void fail(IOException e) {
+            failure = e;
+            discard(); // it won't be read, so don't hold on to the budget
+        }
+
+        /**
+         * @return the byte of the file at the offset, or -1 if past the end
+         */
+        private int headerByte(long at) throws IOException {
+            if (headerBytes == null || at < headerAt || at >= headerAt + headerBytes.limit()) {
+                headerBytes = ByteBuffer.allocate(HEADER_READ);
+                headerAt = at;
+                read(headerBytes, at);
+                headerBytes.flip();
+                if (!headerBytes.hasRemaining())
+                    return -1;
+            }
+            return headerBytes.get((int) (at - headerAt)) & 0xFF;
+        }
+
+        /**
+         * Skip past a zero terminated string in the header.
+         *
+         * @return offset after the zero, or -1 if it runs off the end
+         */
+        private long skipString(long at) throws IOException {
+            if (at < 0)
+                return -1;
+            for (int b = headerByte(at); b != 0; b = headerByte(at)) {
+                if (b < 0)
+                    return -1;
+                at++;
+            }
+            return at + 1;
+        }
+
+        /**
+         * Read the header, and get ready to decompress.
+         *
+         * @return false if not really a member
+         */
+        private boolean header() throws IOException {
+            long at = start + 10; // fixed length part of the header
+            int flags = at <= size && headerByte(start) == 0x1f && headerByte(start + 1) == 0x8b &&
+                    headerByte(start + 2) == 8? headerByte(start + 3): -1;
+            if ((flags & RESERVED) != 0)
+                flags = -1;
+            if (flags >= 0 && (flags & FEXTRA) != 0) {
+                int low = headerByte(at);
+                int high = headerByte(at + 1);
+                at = low < 0 || high < 0? -1: at + 2 + (low | high << 8);
+            }
+            if (flags >= 0 && (flags & FNAME) != 0)
+                at = skipString(at);
+            if (flags >= 0 && (flags & FCOMMENT) != 0)
+                at = skipString(at);
+            if (flags >= 0 && (flags & FHCRC) != 0 && at >= 0)
+                at += 2;
+            headerBytes = null;
+            if (flags < 0 || at < 0 || at > size) {
+                synchronized (this) {
+                    notMember = true;
+                }
+                return false;
+            }
+            data = at;
+            next = data;
+            input = new byte[CHUNK_SIZE];
+            inflater = new Inflater(true);
+            return true;
+        }
+
+        /**
+         * Check the trailer, now all decompressed.
+         */
+        private void trailer() throws IOException {
+            long trailer = data + inflater.getBytesRead();
+            ByteBuffer bytes = ByteBuffer.allocate(8);
+            if (read(bytes, trailer) < 8)
+                throw new IOException("Truncated gzip member at offset " + start);
+            if (littleEndianInt(bytes, 0) != (int) crc.getValue() ||
+                    littleEndianInt(bytes, 4) != (int) inflater.getBytesWritten())
+                throw new IOException("Corrupt gzip member at offset " + start);
+            synchronized (this) {
+                end = trailer + 8;
+                finished = true;
+            }
+        }
+
+        /**
+         * Wait for the next chunk.
+         *
+         * @return the chunk, or null if there are no more
+         * @throws IOException - if it is not a good member
+         */
+        synchronized byte[] take() throws IOException {
+            while (true) {
+                byte[] chunk = chunks.poll();
+                if (chunk != null) {
+                    made(-chunk.length);
+                    resume();
+                    return chunk;
+                }
+                if (failure != null)
+                    throw failure;
+                if (finished || notMember)
+                    return null;
+                resume();
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted decompressing", e);
+                }
+            }
+        }
+    }
+
+    private final FileChannel file;
+    private final long size;
+    private final Executor executor;
+    private final int window;
+    private final long budget; // most bytes decompressed but not read, by all the members
+    private final AtomicLong buffered = new AtomicLong(); // bytes decompressed but not read
+    private final Queue<Member> waiting = new ConcurrentLinkedQueue<>(); // stopped for want of room
+    private final TreeMap<Long, Member> inFlight = new TreeMap<>();
+    private boolean speculating; // more than one member, so worth looking for more
+    private long scanned; // how far the file has been searched for candidates
+    private long offset; // start of the next member
+    private Member member; // being read, or null if none
+    private byte[] current = new byte[0]; // chunk being read
+    private int position; // in the current chunk
+    private boolean ended;
+
+    /**
+     * Create a stream of the decompressed contents of a gzip file.
+     *
+     * @param file - the gzip file, closed with the stream
+     * @param executor - to decompress on
+     * @param window - most candidate members to decompress at once
+     * @throws IOException - if it can't be read
+     */
+    ParallelGzipInputStream(@NotNull FileChannel file, @NotNull Executor executor, int window) throws IOException {
+        this.file = file;
+        this.size = file.size();
+        this.executor = executor;
+        this.window = Math.max(1, window);
+        this.budget = this.window * BUDGET_PER_MEMBER;
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        if (read(magic, 0) < 4 || !isCandidate(magic, 0)) {
+            file.close();
+            throw new IOException("Not in gzip format");
+        }
+    }
+
+    /**
+     * @return how many bytes of the file have been searched for candidates
+     */
+    long getScanned() {
+        return scanned;
+    }
+
+    /**
+     * @return how many bytes have been decompressed, but not read yet
+     */
+    long getBuffered() {
+        return buffered.get();
+    }
+
+    /**
+     * @return the most bytes the members share to decompress into ahead of the reader
+     */
+    long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Count bytes decompressed (or, if negative, read or thrown away),
+     * and if that made room, resume the members waiting for it.
+     */
+    private void made(long bytes) {
+        if (buffered.addAndGet(bytes) < budget && bytes < 0 && !waiting.isEmpty()) {
+            // not here, as this may be holding another member's lock
+            executor.execute(() -> {
+                for (Member stopped = waiting.poll(); stopped != null; stopped = waiting.poll())
+                    stopped.resume();
+            });
+        }
+    }
+
+    private int read(ByteBuffer buffer, long at) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining() && at + total < size) {
+            int n = file.read(buffer, at + total);
+            if (n < 0)
+                break;
+            total += n;
+        }
+        return total;
+    }
+
+    private static boolean isCandidate(ByteBuffer bytes, int i) {
+        return bytes.get(i) == (byte) 0x1f &&
+                bytes.get(i + 1) == (byte) 0x8b &&
+                bytes.get(i + 2) == 8 && // deflate
+                (bytes.get(i + 3) & RESERVED) == 0;
+    }
+
+    private static int littleEndianInt(ByteBuffer bytes, int i) {
+        return (bytes.get(i) & 0xFF) | (bytes.get(i + 1) & 0xFF) << 8 |
+                (bytes.get(i + 2) & 0xFF) << 16 | (bytes.get(i + 3) & 0xFF) << 24;
+    }
+
+    /**
+     * Search on from where we got to, for the next candidate.
+     *
+     * @return its offset, or -1 if there are no more
+     */
+    private long nextCandidate() throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+        while (scanned + 10 <= size) {
+            chunk.clear();
+            int length = read(chunk, scanned);
+            // candidates need a whole header in the file, and the magic
+            // number in this chunk (so the chunks overlap)
+            int limit = (int) Math.min(length - 3, size - 10 - scanned + 1);
+            if (limit <= 0)
+                break;
+            for (int i = 0; i < limit; i++) {
+                if (isCandidate(chunk, i)) {
+                    long candidate = scanned + i;
+                    scanned = candidate + 1;
+                    return candidate;
+                }
+            }
+            scanned += limit;
+        }
+        return -1;
+    }
+
+    /**
+     * Move on to the member starting at the offset,
+     * keeping the window of candidates after it in flight.
+     *
+     * @return false if there isn't one
+     */
+    private boolean advance() throws IOException {
+        // forget candidates before here, they weren't members
+        Iterator<Map.Entry<Long, Member>> passed = inFlight.headMap(offset, true).entrySet().iterator();
+        Member next = null;
+        while (passed.hasNext()) {
+            Member candidate = passed.next().getValue();
+            if (candidate.start == offset)
+                next = candidate;
+            else
+                candidate.cancel();
+            passed.remove();
+        }
+        if (next == null) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            if (read(magic, offset) < 4 || !isCandidate(magic, 0))
+                return false; // the end, or something after it that we ignore
+            next = new Member(offset);
+            next.resume();
+        }
+        if (offset > 0)
+            speculating = true;
+        if (speculating) {
+            scanned = Math.max(scanned, offset + 1);
+            while (inFlight.size() < window) {
+                long candidate = nextCandidate();
+                if (candidate < 0)
+                    break;
+                Member ahead = new Member(candidate);
+                inFlight.put(candidate, ahead);
+                ahead.resume();
+            }
+        }
+        member = next;
+        return true;
+    }
+
+    /**
+     * @return false if no more
+     */
+    private boolean fill() throws IOException {
+        while (position == current.length) {
+            if (ended)
+                return false;
+            if (member == null && !advance()) {
+                ended = true;
+                return false;
+            }
+            byte[] chunk = member.take();
+            if (chunk == null) {
+                if (member.end < 0) // starts like one, right where it should, but isn't
+                    throw new IOException("Corrupt gzip header at offset " + member.start);
+                offset = member.end;
+                member = null;
+                continue;
+            }
+            current = chunk;
+            position = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return fill()? current[position++] & 0xFF: -1;
+    }
+
+    @Override
+    public int read(byte @NotNull [] b, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+        if (!fill())
+            return -1;
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (member != null)
+            member.cancel();
+        for (Member candidate : inFlight.values())
+            candidate.cancel();
+        inFlight.clear();
+        waiting.clear();
+        ended = true;
+        file.close();
+    }
+}
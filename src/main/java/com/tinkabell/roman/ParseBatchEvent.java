@@ -0,0 +1,52 @@
+package com.tinkabell.roman;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event covering a batch of parses,
+ * such as the command line arguments given to main(), a block of lines
+ * converted by RomanFileConverter (or RomanDirectoryWatcher), or a pass
+ * of RomanProcessor's drain loop.
+ * The start and end of the batch are the start and end of the event,
+ * so it can be lined up with GC pauses and thread scheduling.
+ */
+@Name("com.tinkabell.roman.ParseBatch")
+@Label("Roman Parse Batch")
+@Category("Roman Numbers")
+@Description("A batch of parses of roman numerals")
+@StackTrace(false)
+class ParseBatchEvent extends jdk.jfr.Event {
+
+    @Label("Engine")
+    @Description("Which parser was used")
+    String engine;
+
+    @Label("Count")
+    @Description("Number of parses in the batch")
+    long count;
+
+    @Label("Errors")
+    @Description("Number of parses that failed")
+    long errors;
+
+    /**
+     * Fill in the details and commit, if the event is wanted.
+     *
+     * @param engine - which parser
+     * @param count - parses in the batch
+     * @param errors - parses that failed
+     */
+    void finish(String engine, long count, long errors) {
+        end();
+        if (shouldCommit()) {
+            this.engine = engine;
+            this.count = count;
+            this.errors = errors;
+            commit();
+        }
+    }
+}
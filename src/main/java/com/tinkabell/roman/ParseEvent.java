@@ -0,0 +1,62 @@
+package com.tinkabell.roman;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for a single parse that took too long.
+ *
+ * Only parses lasting longer than the threshold are recorded,
+ * which can be changed in the recording settings, for example:
+ *    -XX:StartFlightRecording:settings=roman.jfc
+ * with com.tinkabell.roman.Parse#threshold set to "100 us".
+ * When recording is off the event is never committed, so all it costs
+ * is the (escape analysed) creation and timing calls.
+ */
+@Name("com.tinkabell.roman.Parse")
+@Label("Roman Parse")
+@Category("Roman Numbers")
+@Description("A parse of roman numerals that exceeded the threshold")
+@Threshold("1 ms")
+@StackTrace(false)
+class ParseEvent extends jdk.jfr.Event {
+
+    private static final int MAX_INPUT = 64; // don't record huge inputs
+
+    @Label("Engine")
+    @Description("Which parser was used")
+    String engine;
+
+    @Label("Input")
+    String input;
+
+    @Label("Value")
+    int value;
+
+    @Label("Error")
+    @Description("Why the parse failed, or null if it succeeded")
+    String error;
+
+    /**
+     * Fill in the details and commit, if the event is wanted.
+     *
+     * @param engine - which parser
+     * @param input - what was parsed
+     * @param value - what it parsed to (0 if failed)
+     * @param error - why it failed (null if succeeded)
+     */
+    void finish(String engine, String input, int value, String error) {
+        end();
+        if (shouldCommit()) {
+            this.engine = engine;
+            this.input = input.length() > MAX_INPUT? input.substring(0, MAX_INPUT): input;
+            this.value = value;
+            this.error = error;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.tinkabell.roman;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * An immutable roman number value.
+ *
+ * Unlike RomanNumber (and RomanNumeral) which are parsers that
+ * accumulate state one numeral at a time, a Roman is a value:
+ * it holds the integer value and its canonical numeral string and
+ * never changes.
+ *
+ * The numerals come from the build time RomanTables, and each Roman is
+ * created the first time its value is asked for, so initialising the
+ * class costs next to nothing. After that, like Integer.valueOf(), the
+ * factories never create new instances and two Roman's of the same value
+ * are always the same object.
+ * As a result equality is identity, but equals() and hashCode() are
+ * still value based for the benefit of anyone who forgets.
+ *
+ * The canonical numeral uses "subtractive notation" for 4's and 9's,
+ * and as there is no '5' of thousands, repeats 'M' for thousands
+ * beyond 3 (so 9999 is "MMMMMMMMMCMXCIX").
+ */
+public final class Roman implements Comparable<Roman> {
+
+    public static final int MAX_VALUE = 10000 - 1;
+    public static final int MIN_VALUE = 1;
+
+    // numerals for one, five and ten at each order (units first)
+    private static final char[][] orderNumerals = {
+            {'I', 'V', 'X'},
+            {'X', 'L', 'C'},
+            {'C', 'D', 'M'},
+            {'M', 0, 0} // no five or ten of thousands
+    };
+
+    // canonical numerals for each digit (0 to 9) at each order (units first)
+    static final char[][][] digitNumerals = new char[orderNumerals.length][10][];
+
+    static {
+        // looked up rather than worked out: a digit's numerals are those of digit * 10^order
+        for (int order = 0, power = 1; order < orderNumerals.length; order++, power *= 10) {
+            digitNumerals[order][0] = new char[0];
+            for (int digit = 1; digit < 10; digit++)
+                digitNumerals[order][digit] = RomanTables.format(digit * power).toCharArray();
+        }
+    }
+
+    // every value asked for so far, indexed by value (so 0 is unused)
+    private static final Roman[] cache = new Roman[MAX_VALUE + 1];
+    private static final VarHandle CACHE = MethodHandles.arrayElementVarHandle(Roman[].class);
+
+    private final int value;
+    private final String numerals;
+
+    private Roman(int value, String numerals) {
+        this.value = value;
+        this.numerals = numerals;
+    }
+
+    /**
+     * Return the Roman representing the given value.
+     *
+     * @param value - an int in the range 1 to 9999
+     * @return the (shared) Roman of that value
+     * @throws NumberFormatException - if the value is out of range
+     */
+    public static Roman valueOf(int value) throws NumberFormatException {
+        if (value < MIN_VALUE || value > MAX_VALUE)
+            throw new NumberFormatException("Value " + value + " is out of range");
+        return cached(value);
+    }
+
+    /**
+     * Return the Roman of the value, creating it the first time.
+     * Should two threads race to create it, both get the one that won.
+     *
+     * @param value - an int in the range 1 to 9999
+     * @return the (shared) Roman of that value
+     */
+    private static Roman cached(int value) {
+        Roman roman = (Roman) CACHE.getAcquire(cache, value);
+        if (roman == null) {
+            roman = new Roman(value, RomanTables.format(value));
+            Roman won = (Roman) CACHE.compareAndExchangeRelease(cache, value, null, roman);
+            if (won != null)
+                roman = won;
+        }
+        return roman;
+    }
+
+    /**
+     * Parse the roman numerals and return the Roman representing them.
+     * Accepts anything RomanNumber.parse() does, so lowercase, padding
+     * and additive forms all map to the same (canonical) Roman.
+     *
+     * @param s - roman numerals to be parsed
+     * @return the (shared) Roman of that value
+     * @throws NumberFormatException - if the numerals are not valid
+     */
+    public static Roman valueOf(@NotNull CharSequence s) throws NumberFormatException {
+        ParseEvent event = new ParseEvent(); // only recorded if slow
+        event.begin();
+        try {
+            int value = RomanTables.parse(s);
+            if (value == 0)
+                value = RomanNumber.parseNumerals(s.toString()); // to throw the reason it is invalid
+            event.finish("Roman", s.toString(), value, null);
+            return cached(value);
+        } catch (NumberFormatException e) {
+            event.finish("Roman", s.toString(), 0, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Format one decimal digit as canonical roman numerals.
+     *
+     * @param order - 0 for units to 3 for thousands
+     * @param digit - 0 to 9
+     * @return the numerals for that digit
+     */
+    static String formatDigit(int order, int digit) {
+        char[] numeral = orderNumerals[order];
+        StringBuilder builder = new StringBuilder(9); // longest is 9 thousands
+        if (numeral[1] == 0) {
+            // no five or ten so can only be repeated
+            builder.append(String.valueOf(numeral[0]).repeat(digit));
+        } else if (digit == 9) {
+            builder.append(numeral[0]).append(numeral[2]);
+        } else if (digit == 4) {
+            builder.append(numeral[0]).append(numeral[1]);
+        } else {
+            if (digit >= 5) {
+                builder.append(numeral[1]);
+                digit -= 5;
+            }
+            builder.append(String.valueOf(numeral[0]).repeat(digit));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Format the value as canonical roman numerals.
+     * This works out what RomanTables.format() looks up,
+     * without using it (or the digitNumerals taken from it).
+     *
+     * @param value - an int in the range 1 to 9999
+     * @return the canonical numerals for that value
+     */
+    static String format(int value) {
+        StringBuilder builder = new StringBuilder(21); // longest is 9888
+        int power = 1000;
+        for (int order = orderNumerals.length - 1; order >= 0; order--) {
+            builder.append(formatDigit(order, (value / power) % 10));
+            power /= 10;
+        }
+        return builder.toString();
+    }
+
+    public int intValue() {
+        return value;
+    }
+
+    /**
+     * @return the canonical roman numerals for this value
+     */
+    @Override
+    public String toString() {
+        return numerals;
+    }
+
+    @Override
+    public int compareTo(@NotNull Roman other) {
+        return Integer.compare(value, other.value);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other ||
+                (other instanceof Roman && ((Roman) other).value == value);
+    }
+
+    @Override
+    public int hashCode() {
+        return value;
+    }
+}
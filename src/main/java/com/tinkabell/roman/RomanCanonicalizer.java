@@ -0,0 +1,140 @@
+package com.tinkabell.roman;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Rewrite leniently written roman numerals (lowercase, surrounding
+ * whitespace, "additive notation" like IIII or VIIII) into their
+ * canonical form, in place.
+ *
+ * One pass over the numerals combines them into a PackedRomanNumeral,
+ * whose state holds the value as four digits, and each digit is then
+ * written straight from a table of the numerals for each digit at each
+ * order, so the value is never made into an int and back.
+ * The canonical form of a digit is never longer than any lenient one,
+ * so it always fits where the numerals were.
+ *
+ * Invalid numerals are left as they were.
+ */
+public final class RomanCanonicalizer {
+
+    public static final int INVALID = -1;
+
+    // numerals of each digit at each order (units first)
+    private static final char[][][] chars = Roman.digitNumerals;
+    private static final byte[][][] bytes = new byte[chars.length][10][];
+
+    static {
+        for (int order = 0; order < chars.length; order++)
+            for (int digit = 0; digit < 10; digit++)
+                bytes[order][digit] = new String(chars[order][digit]).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private RomanCanonicalizer() {
+        // only static methods
+    }
+
+    /**
+     * Canonicalize the numerals in the buffer.
+     *
+     * @param buffer - containing the numerals
+     * @param offset - of the first character
+     * @param length - number of characters
+     * @return the length of the canonical numerals (from the offset), or INVALID if unchanged as not valid
+     */
+    public static int canonicalize(char @NotNull [] buffer, int offset, int length) {
+        long state = PackedRomanNumeral.fold(buffer, offset, offset + length);
+        if (!PackedRomanNumeral.isValid(state))
+            return INVALID;
+        int digits = PackedRomanNumeral.digits(state);
+        int position = offset;
+        for (int order = chars.length - 1; order >= 0; order--) {
+            char[] numerals = chars[order][(digits >>> (4 * order)) & 0xF];
+            System.arraycopy(numerals, 0, buffer, position, numerals.length);
+            position += numerals.length;
+        }
+        return position - offset;
+    }
+
+    /**
+     * Canonicalize the ascii numerals in the buffer.
+     *
+     * @param buffer - containing the numerals
+     * @param offset - of the first character
+     * @param length - number of characters
+     * @return the length of the canonical numerals (from the offset), or INVALID if unchanged as not valid
+     */
+    public static int canonicalize(byte @NotNull [] buffer, int offset, int length) {
+        long state = PackedRomanNumeral.fold(buffer, offset, offset + length);
+        if (!PackedRomanNumeral.isValid(state))
+            return INVALID;
+        int digits = PackedRomanNumeral.digits(state);
+        int position = offset;
+        for (int order = bytes.length - 1; order >= 0; order--) {
+            byte[] numerals = bytes[order][(digits >>> (4 * order)) & 0xF];
+            System.arraycopy(numerals, 0, buffer, position, numerals.length);
+            position += numerals.length;
+        }
+        return position - offset;
+    }
+
+    /**
+     * Canonicalize each record in the buffer,
+     * replacing its length with the canonical length (or INVALID).
+     *
+     * @param buffer - containing the records
+     * @param offsets - of each record
+     * @param lengths - of each record, replaced
+     * @param count - number of records
+     * @return the number of invalid records
+     */
+    public static int canonicalize(char @NotNull [] buffer, int @NotNull [] offsets, int @NotNull [] lengths, int count) {
+        int invalid = 0;
+        for (int i = 0; i < count; i++) {
+            lengths[i] = canonicalize(buffer, offsets[i], lengths[i]);
+            if (lengths[i] == INVALID)
+                invalid++;
+        }
+        return invalid;
+    }
+
+    /**
+     * Canonicalize each ascii record in the buffer,
+     * replacing its length with the canonical length (or INVALID).
+     *
+     * @param buffer - containing the records
+     * @param offsets - of each record
+     * @param lengths - of each record, replaced
+     * @param count - number of records
+     * @return the number of invalid records
+     */
+    public static int canonicalize(byte @NotNull [] buffer, int @NotNull [] offsets, int @NotNull [] lengths, int count) {
+        int invalid = 0;
+        for (int i = 0; i < count; i++) {
+            lengths[i] = canonicalize(buffer, offsets[i], lengths[i]);
+            if (lengths[i] == INVALID)
+                invalid++;
+        }
+        return invalid;
+    }
+
+    /**
+     * Canonicalize each record in its own array,
+     * replacing its length with the canonical length (or INVALID).
+     *
+     * @param records - each holding one record
+     * @param lengths - of each record, replaced
+     * @return the number of invalid records
+     */
+    public static int canonicalize(char @NotNull [][] records, int @NotNull [] lengths) {
+        int invalid = 0;
+        for (int i = 0; i < records.length; i++) {
+            lengths[i] = canonicalize(records[i], 0, lengths[i]);
+            if (lengths[i] == INVALID)
+                invalid++;
+        }
+        return invalid;
+    }
+}
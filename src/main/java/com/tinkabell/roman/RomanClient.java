@@ -0,0 +1,178 @@
+package com.tinkabell.roman;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A benchmark client of RomanServer.
+ *
+ * Each connection has a thread sending lines from a RomanWorkload,
+ * without waiting for the answers, and a thread reading the answers,
+ * so the server always has lines to work on.
+ */
+public class RomanClient {
+
+    private RomanClient() {
+        // only static methods
+    }
+
+    /**
+     * Send the lines on each connection, and count the answers.
+     *
+     * @param address - of the server
+     * @param connections - number of connections at once
+     * @param lines - number of lines to send on each connection
+     * @param workload - to make the lines sent
+     * @return the number of answers that were errors
+     * @throws IOException - if a connection fails
+     */
+    public static long run(@NotNull InetSocketAddress address, int connections, long lines,
+                           @NotNull RomanWorkload workload) throws IOException {
+        if (connections < 1)
+            throw new IllegalArgumentException("Must have at least one connection: " + connections);
+        // a block of lines to send over and over
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        workload.write(block, Math.min(lines, 10_000));
+        byte[] request = block.toByteArray();
+        int linesPerRequest = (int) Math.min(lines, 10_000);
+
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        long[] errors = new long[connections];
+        SocketChannel[] channels = new SocketChannel[connections];
+        try {
+            Thread[] threads = new Thread[2 * connections];
+            for (int c = 0; c < connections; c++) {
+                SocketChannel channel = SocketChannel.open(address);
+                channels[c] = channel;
+                channel.socket().setTcpNoDelay(true);
+                int connection = c;
+                threads[2 * c] = new Thread(() -> {
+                    try {
+                        ByteBuffer buffer = ByteBuffer.allocateDirect(request.length);
+                        for (long sent = 0; sent < lines; sent += linesPerRequest) {
+                            buffer.clear();
+                            buffer.put(request, 0, sent + linesPerRequest <= lines? request.length:
+                                    lengthOfLines(request, (int) (lines - sent)));
+                            buffer.flip();
+                            while (buffer.hasRemaining())
+                                channel.write(buffer);
+                        }
+                    } catch (IOException e) {
+                        fail(channel, failure, e); // so the receiver stops waiting for answers
+                    }
+                }, "roman-client-send");
+                threads[2 * c + 1] = new Thread(() -> {
+                    try {
+                        errors[connection] = receive(channel, lines);
+                    } catch (IOException e) {
+                        fail(channel, failure, e); // so the sender stops sending
+                    }
+                }, "roman-client-receive");
+            }
+            for (Thread thread : threads)
+                thread.start();
+            try {
+                for (Thread thread : threads)
+                    thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", e);
+            }
+        } finally {
+            // all that were opened, even if opening a later one failed
+            for (SocketChannel channel : channels)
+                if (channel != null)
+                    channel.close();
+        }
+        if (failure.get() != null)
+            throw failure.get();
+        long total = 0;
+        for (long count : errors)
+            total += count;
+        return total;
+    }
+
+    /**
+     * Record the failure, unless there already is one, and close the channel,
+     * so the thread at the other end of it stops too.
+     */
+    private static void fail(SocketChannel channel, AtomicReference<IOException> failure, IOException e) {
+        failure.compareAndSet(null, e);
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // it is the first failure we want
+        }
+    }
+
+    private static int lengthOfLines(byte[] request, int lines) {
+        int length = 0;
+        while (lines > 0)
+            if (request[length++] == '\n')
+                lines--;
+        return length;
+    }
+
+    /**
+     * Read the answers.
+     *
+     * @return the number that were errors
+     */
+    private static long receive(SocketChannel channel, long lines) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(RomanServer.BUFFER_SIZE);
+        long received = 0;
+        long errors = 0;
+        boolean atStart = true; // of an answer
+        while (received < lines) {
+            buffer.clear();
+            if (channel.read(buffer) < 0)
+                throw new IOException("Closed after " + received + " answers");
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (atStart && b == 'E')
+                    errors++;
+                atStart = b == '\n';
+                if (atStart)
+                    received++;
+            }
+        }
+        return errors;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 3) {
+            System.err.println("Usage: RomanClient [connections [lines [port]]]");
+            System.exit(2);
+        }
+        int connections = args.length > 0? Integer.parseInt(args[0]): 4;
+        long lines = args.length > 1? Long.parseLong(args[1]): 2_000_000;
+        RomanWorkload workload = new RomanWorkload(0).lowercase(0.1).additive(0.1).invalid(0.01);
+        RomanServer server = null;
+        InetSocketAddress address;
+        if (args.length > 2) {
+            address = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[2]));
+        } else {
+            server = new RomanServer(0); // one of our own
+            server.start();
+            address = server.getAddress();
+        }
+        try {
+            long start = System.nanoTime();
+            long errors = run(address, connections, lines, workload);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d conversions (%d errors) on %d connections in %.3f s: %.0f per second%n",
+                    connections * lines, errors, connections, seconds, connections * lines / seconds);
+        } finally {
+            if (server != null)
+                server.close();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.tinkabell.roman;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Continuously convert files of roman numerals, one per line, as they
+ * arrive in (or are appended to) a drop directory.
+ *
+ * For each input file "name" the output directory has:
+ *    name.out - the converted lines, as RomanFileConverter writes them
+ *    name.checkpoint - which files the input and output were, how far the
+ *                      input has been converted and how long the output
+ *                      was at that point
+ * Only whole lines are converted, so a partly written last line waits
+ * for the rest of it.
+ *
+ * The output is forced to disk before the checkpoint is (atomically)
+ * replaced, and on resuming the output is cut back to the length in the
+ * checkpoint, so after a restart (or crash) nothing is converted twice
+ * and nothing is lost.
+ * If an input file is not the one in its checkpoint (by its file key,
+ * or creation time where there are no file keys), or becomes shorter
+ * than its checkpoint, it is taken to have been replaced, and is
+ * converted again from the start, with its output added to that of the
+ * file it replaced.
+ * If the output is not the one in its checkpoint, or is shorter than it,
+ * it has been lost, so the checkpoint is dropped and the input converted
+ * again from the start.
+ * A checkpoint that can't be read is moved aside, with the output it was
+ * for, to name.checkpoint.corrupt-time and name.out.corrupt-time, and
+ * the file is converted again from the start.
+ *
+ * Files are converted concurrently on a pool, but each file by only one
+ * thread at a time: changes while it is being converted just mean it
+ * goes round again.
+ * Hidden files (starting with '.') are ignored, and the output directory
+ * can't be in the input directory, or the output would be converted too.
+ */
+public class RomanDirectoryWatcher implements AutoCloseable {
+
+    /**
+     * How far an input file has been converted.
+     *
+     * @param input - bytes of the input converted
+     * @param output - bytes of output written for them
+     * @param identity - of the input file, or "" if not known
+     * @param outputIdentity - of the output file, or "" if not known
+     */
+    record Checkpoint(long input, long output, @NotNull String identity, @NotNull String outputIdentity) {
+
+        /**
+         * @return the checkpoint in the file, from the start if there is none,
+         * or null if it can't be read (such as if it is only partly written)
+         */
+        static Checkpoint read(Path file) throws IOException {
+            if (!Files.exists(file))
+                return new Checkpoint(0, 0, "", "");
+            // the output's identity is on a line of its own, and missing from older checkpoints
+            String[] lines = Files.readString(file, StandardCharsets.US_ASCII).split("\n", 2);
+            String[] parts = lines[0].trim().split(" ", 3);
+            try {
+                long input = Long.parseLong(parts[0]);
+                long output = parts.length > 1? Long.parseLong(parts[1]): -1;
+                if (input < 0 || output < 0)
+                    return null;
+                return new Checkpoint(input, output, parts.length > 2? parts[2]: "",
+                        lines.length > 1? lines[1].trim(): "");
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * The identity of a file, which changes if it is replaced: its file key
+         * (device and inode on unix), or its creation time where there are none.
+         */
+        static String identify(Path file) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            Object key = attributes.fileKey();
+            return (key != null? key.toString(): attributes.creationTime().toString()).replace('\n', ' ');
+        }
+
+        void write(Path file) throws IOException {
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            String text = input + " " + output + " " + identity + "\n" + outputIdentity + "\n";
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII)));
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private final Path input;
+    private final Path output;
+    private final ExecutorService workers;
+    private final Map<Path, Integer> lanes = new ConcurrentHashMap<>(); // changes pending per file being converted
+    private final AtomicLong lines = new AtomicLong(); // converted
+    private final AtomicLong errors = new AtomicLong(); // of those, in error
+    private WatchService watchService;
+    private Thread watcher;
+
+    /**
+     * Create a watcher.
+     *
+     * @param input - directory to watch
+     * @param output - directory for the output and checkpoints
+     * @param threads - number of files to convert at once
+     */
+    public RomanDirectoryWatcher(@NotNull Path input, @NotNull Path output, int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Must have at least one worker: " + threads);
+        checkOutsideInput(input.toAbsolutePath().normalize(), output.toAbsolutePath().normalize(), output);
+        this.input = input;
+        this.output = output;
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "roman-ingest");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static void checkOutsideInput(Path input, Path output, Path given) {
+        if (output.startsWith(input))
+            throw new IllegalArgumentException("Output directory " + given + " must not be in the input directory");
+    }
+
+    /**
+     * Start watching, after catching up with whatever is already there.
+     *
+     * @throws IOException - if the directories can't be used
+     */
+    public synchronized void start() throws IOException {
+        if (watcher != null)
+            throw new IllegalStateException("Already started");
+        Files.createDirectories(output);
+        checkOutsideInput(input.toRealPath(), output.toRealPath(), output); // through any links
+        watchService = input.getFileSystem().newWatchService();
+        // register before scanning, so nothing arriving in between is missed
+        input.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        scan();
+        watcher = new Thread(this::watch, "roman-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    public long getLines() {
+        return lines.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    private void scan() throws IOException {
+        try (Stream<Path> files = Files.list(input)) {
+            files.forEach(this::schedule);
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                        scan(); // lost track, so look at everything
+                    else
+                        schedule(input.resolve((Path) event.context()));
+                }
+                key.reset();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed, so stop
+        } catch (IOException e) {
+            System.err.println("Stopped watching " + input + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Convert the file on a worker, unless it is already being converted,
+     * in which case it will go round again.
+     *
+     * @param file - that has changed
+     */
+    private void schedule(Path file) {
+        if (file.getFileName().toString().startsWith(".") || !Files.isRegularFile(file))
+            return;
+        // the count only ever changes atomically in the map, so the file's entry
+        // is removed when it is done with, and no other is made until then
+        if (lanes.merge(file, 1, Integer::sum) == 1) {
+            workers.execute(() -> {
+                int missed = 1;
+                while (true) {
+                    try {
+                        process(file);
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("Failed converting " + file + ": " + e);
+                    }
+                    int done = missed;
+                    Integer pending = lanes.computeIfPresent(file, (path, count) -> count == done? null: count - done);
+                    if (pending == null)
+                        break;
+                    missed = pending;
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the number of files being (or waiting to be) converted
+     */
+    int getConverting() {
+        return lanes.size();
+    }
+
+    /**
+     * Convert any whole lines added to the file since its checkpoint.
+     *
+     * @param file - to convert
+     * @throws IOException - if reading or writing fails
+     */
+    void process(@NotNull Path file) throws IOException {
+        String name = file.getFileName().toString();
+        Path checkpointFile = output.resolve(name + ".checkpoint");
+        Path outputFile = output.resolve(name + ".out");
+        Checkpoint checkpoint = Checkpoint.read(checkpointFile);
+        if (checkpoint == null) {
+            // don't know how far we got, so keep what we had and start again
+            String aside = ".corrupt-" + System.currentTimeMillis();
+            System.err.println("Warning: can't read " + checkpointFile + ", moving it and its output aside to *"
+                    + aside + " and converting " + file + " again");
+            Files.move(checkpointFile, checkpointFile.resolveSibling(checkpointFile.getFileName() + aside));
+            if (Files.exists(outputFile))
+                Files.move(outputFile, outputFile.resolveSibling(outputFile.getFileName() + aside));
+            checkpoint = new Checkpoint(0, 0, "", "");
+        }
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(outputFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            String identity = Checkpoint.identify(file);
+            String outputIdentity = Checkpoint.identify(outputFile);
+            if (out.size() < checkpoint.output
+                    || !outputIdentity.equals(checkpoint.outputIdentity) && !checkpoint.outputIdentity.isEmpty()) {
+                // resuming would leave a hole where the output was, so convert it all again
+                System.err.println("Warning: " + outputFile + " is not the output checkpointed, converting "
+                        + file + " again");
+                checkpoint = new Checkpoint(0, 0, identity, outputIdentity);
+            }
+            if (in.size() < checkpoint.input || !identity.equals(checkpoint.identity) && !checkpoint.identity.isEmpty())
+                checkpoint = new Checkpoint(0, checkpoint.output, identity, outputIdentity); // replaced, so start again after its output
+            out.truncate(checkpoint.output); // forget anything after the checkpoint
+            byte[] block = new byte[RomanFileConverter.BLOCK_SIZE];
+            while (true) {
+                // read as much as will fit
+                ByteBuffer buffer = ByteBuffer.wrap(block);
+                while (buffer.hasRemaining() && in.read(buffer, checkpoint.input + buffer.position()) > 0) {
+                    // keep reading
+                }
+                int filled = buffer.position();
+                int end = filled;
+                while (end > 0 && block[end - 1] != '\n')
+                    end--;
+                if (end == 0) {
+                    if (filled < block.length)
+                        break; // nothing more, or only part of a line
+                    block = new byte[2 * block.length]; // a very long line
+                    continue;
+                }
+                RomanFileConverter.Result result = RomanFileConverter.convertBlock(block, end);
+                ByteBuffer converted = ByteBuffer.wrap(result.output());
+                long position = checkpoint.output;
+                while (converted.hasRemaining())
+                    position += out.write(converted, position);
+                out.force(false);
+                checkpoint = new Checkpoint(checkpoint.input + end, position, identity, outputIdentity);
+                checkpoint.write(checkpointFile);
+                for (int i = 0; i < end; i++)
+                    if (block[i] == '\n')
+                        lines.incrementAndGet();
+                errors.addAndGet(result.errors());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null)
+            watchService.close();
+        if (watcher != null)
+            watcher.interrupt();
+        workers.shutdown();
+        try {
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length != 2) {
+            System.err.println("Usage: RomanDirectoryWatcher inputDirectory outputDirectory");
+            System.exit(2);
+        }
+        RomanDirectoryWatcher watcher = new RomanDirectoryWatcher(Path.of(args[0]), Path.of(args[1]),
+                Runtime.getRuntime().availableProcessors());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+            }
+        }));
+        watcher.start();
+        System.out.println("Watching " + args[0] + ", press Ctrl-C to stop");
+        Thread.currentThread().join(); // until stopped
+    }
+}
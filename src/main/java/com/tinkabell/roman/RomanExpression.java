@@ -0,0 +1,221 @@
+package com.tinkabell.roman;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An arithmetic expression of roman numbers, such as "MCMXCIV - XLII * II".
+ *
+ * Supports + - * / (integer division) and parentheses, with the usual precedence.
+ * Each run of letters is a roman number, parsed by RomanNumber.parse(),
+ * so lowercase and "additive notation" are accepted as usual.
+ *
+ * An expression is compiled once into a postfix program, which can then
+ * be evaluated any number of times without tokenizing or parsing again.
+ * compile() keeps a bounded cache of the most recently used expressions
+ * by their text, so repeating an expression skips compiling completely.
+ */
+public final class RomanExpression {
+
+    public static final int CACHE_SIZE = 1024;
+
+    /*
+    The program is postfix: positive entries push a value
+    and negative entries are operators on the top two values.
+     */
+    private static final int ADD = -1;
+    private static final int SUBTRACT = -2;
+    private static final int MULTIPLY = -3;
+    private static final int DIVIDE = -4;
+
+    // least recently used expressions are dropped once full
+    private static final Map<String, RomanExpression> cache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, RomanExpression> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    private final String text;
+    private final int[] program;
+    private final int depth; // most values on the stack at once
+
+    private RomanExpression(String text, int[] program, int depth) {
+        this.text = text;
+        this.program = program;
+        this.depth = depth;
+    }
+
+    /**
+     * Compile the expression, or fetch it from the cache if recently compiled.
+     *
+     * @param text - the expression
+     * @return the compiled expression
+     * @throws NumberFormatException - if the expression or any numeral is invalid
+     */
+    public static RomanExpression compile(@NotNull String text) throws NumberFormatException {
+        RomanExpression expression = cache.get(text);
+        if (expression == null) {
+            expression = new Compiler(text).compile();
+            cache.put(text, expression);
+        }
+        return expression;
+    }
+
+    /**
+     * Compile (if need be) and evaluate the expression.
+     *
+     * @param text - the expression
+     * @return the value of the expression
+     * @throws NumberFormatException - if the expression or any numeral is invalid
+     * @throws ArithmeticException - if it divides by zero or overflows
+     */
+    public static int evaluate(@NotNull String text) throws NumberFormatException, ArithmeticException {
+        return compile(text).evaluate();
+    }
+
+    /**
+     * @param s - some input
+     * @return true if the input has any operators, so is more than a single roman number
+     */
+    public static boolean isExpression(@NotNull String s) {
+        for (int i = 0; i < s.length(); i++)
+            if (Compiler.operators.indexOf(s.charAt(i)) >= 0)
+                return true;
+        return false;
+    }
+
+    /**
+     * Evaluate this expression.
+     *
+     * @return the value of the expression
+     * @throws ArithmeticException - if it divides by zero or overflows
+     */
+    public int evaluate() throws ArithmeticException {
+        int[] stack = new int[depth];
+        int top = -1;
+        for (int code : program) {
+            if (code > 0) {
+                stack[++top] = code;
+            } else {
+                int right = stack[top--];
+                int left = stack[top];
+                stack[top] = switch (code) {
+                    case ADD -> Math.addExact(left, right);
+                    case SUBTRACT -> Math.subtractExact(left, right);
+                    case MULTIPLY -> Math.multiplyExact(left, right);
+                    default -> divide(left, right);
+                };
+            }
+        }
+        return stack[0];
+    }
+
+    private static int divide(int left, int right) {
+        if (left == Integer.MIN_VALUE && right == -1)
+            throw new ArithmeticException("integer overflow"); // the only division that can
+        return left / right;
+    }
+
+    @Override
+    public String toString() {
+        return "RomanExpression{'" + text + "', " + Arrays.toString(program) + '}';
+    }
+
+    /**
+     * Recursive descent compiler of:
+     *    expression = term (('+' | '-') term)*
+     *    term = factor (('*' | '/') factor)*
+     *    factor = numerals | '(' expression ')'
+     */
+    private static final class Compiler {
+
+        private static final String operators = "+-*/()";
+
+        private final String text;
+        private int position; // next character
+        private int[] program = new int[8];
+        private int length; // of program so far
+        private int height; // of stack at this point in the program
+        private int depth; // most the stack has been
+
+        private Compiler(String text) {
+            this.text = text;
+        }
+
+        private RomanExpression compile() {
+            expression();
+            skipWhitespace();
+            if (position < text.length())
+                throw error("Unexpected '" + text.charAt(position) + "'");
+            return new RomanExpression(text, Arrays.copyOf(program, length), depth);
+        }
+
+        private NumberFormatException error(String message) {
+            return new NumberFormatException(message + " at position " + position + " of '" + text + "'");
+        }
+
+        private void emit(int code) {
+            if (length == program.length)
+                program = Arrays.copyOf(program, 2 * length);
+            program[length++] = code;
+            height += code > 0? 1: -1;
+            depth = Math.max(depth, height);
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position)))
+                position++;
+        }
+
+        /**
+         * @return the next operator (or parenthesis) without taking it, or 0 if none
+         */
+        private char peek() {
+            skipWhitespace();
+            if (position < text.length() && operators.indexOf(text.charAt(position)) >= 0)
+                return text.charAt(position);
+            return 0;
+        }
+
+        private void expression() {
+            term();
+            for (char operator = peek(); operator == '+' || operator == '-'; operator = peek()) {
+                position++;
+                term();
+                emit(operator == '+'? ADD: SUBTRACT);
+            }
+        }
+
+        private void term() {
+            factor();
+            for (char operator = peek(); operator == '*' || operator == '/'; operator = peek()) {
+                position++;
+                factor();
+                emit(operator == '*'? MULTIPLY: DIVIDE);
+            }
+        }
+
+        private void factor() {
+            if (peek() == '(') {
+                position++;
+                expression();
+                if (peek() != ')')
+                    throw error("Missing ')'");
+                position++;
+                return;
+            }
+            int start = position;
+            while (position < text.length() && Character.isLetter(text.charAt(position)))
+                position++;
+            if (start == position)
+                throw error("Expected a roman number");
+            emit(RomanNumber.parse(text.substring(start, position)));
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.tinkabell.roman;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Convert a file of roman numerals, one per line, into their values.
+ * Each line of output is as RomanNumber.parseAndPrint() would print it.
+ *
+ * The file is read on a thread of its own, which cuts it into blocks of
+ * whole lines, and hands them off through a bounded ring of pending
+ * conversions to a pool of parser workers.
+ * The results are written in the original order as they complete.
+ *
+ * Gzip compressed files are recognised by their magic number and
+ * decompressed by ParallelGzipInputStream, a few blocks ahead of the
+ * reader thread, so the workers just see lines.
+ * If the file has several gzip members (as made by concatenating gzip
+ * files) they are decompressed in parallel.
+ *
+ * Optionally the results can be looked up in (and added to) a
+ * RomanResultCache, which is kept from run to run.
+ */
+public class RomanFileConverter implements AutoCloseable {
+
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * The converted output of a block, and how many lines were in error.
+     */
+    record Result(byte[] output, int errors) {}
+
+    // marks the end of the ring
+    private static final Future<Result> END = CompletableFuture.completedFuture(null);
+
+    private final ExecutorService workers;
+    private final int ringSize;
+    private final RomanResultCache cache;
+
+    /**
+     * Create a converter with a worker per processor.
+     */
+    public RomanFileConverter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a converter.
+     *
+     * @param threads - number of parser workers
+     */
+    public RomanFileConverter(int threads) {
+        this(threads, null);
+    }
+
+    /**
+     * Create a converter that uses a cache.
+     *
+     * @param threads - number of parser workers
+     * @param cache - of results, or null for none
+     */
+    public RomanFileConverter(int threads, @Nullable RomanResultCache cache) {
+        this.cache = cache;
+        if (threads < 1)
+            throw new IllegalArgumentException("Must have at least one worker: " + threads);
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "roman-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ringSize = 2 * threads; // keep them all busy, but no more
+    }
+
+    /**
+     * Convert the input file, writing the results to the output.
+     *
+     * @param input - file of roman numerals, plain or gzip compressed
+     * @param output - to write the results to
+     * @return the number of lines in error
+     * @throws IOException - if reading or writing fails
+     */
+    public long convert(@NotNull Path input, @NotNull OutputStream output) throws IOException {
+        BlockingQueue<Future<Result>> ring = new ArrayBlockingQueue<>(ringSize);
+        IOException[] failure = new IOException[1];
+        Thread reader = new Thread(() -> {
+            try (InputStream in = open(input)) {
+                blocks(in, (block, length) -> ring.put(workers.submit(() -> convertBlock(block, length, cache))));
+            } catch (IOException e) {
+                failure[0] = e;
+            } catch (InterruptedException e) {
+                failure[0] = new IOException("Interrupted reading " + input, e);
+            } finally {
+                try {
+                    ring.put(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "roman-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        long errors = 0;
+        try {
+            for (Future<Result> pending = ring.take(); pending != END; pending = ring.take()) {
+                Result result = pending.get();
+                output.write(result.output);
+                errors += result.errors;
+            }
+            reader.join();
+        } catch (InterruptedException e) {
+            reader.interrupt();
+            throw new IOException("Interrupted converting " + input, e);
+        } catch (ExecutionException e) {
+            reader.interrupt();
+            throw new IOException("Failed converting " + input, e.getCause());
+        }
+        output.flush();
+        if (failure[0] != null)
+            throw failure[0];
+        return errors;
+    }
+
+    /**
+     * Open the file, decompressing it if it is gzip.
+     *
+     * @param input - file to open
+     * @return stream of the (decompressed) contents
+     * @throws IOException - if it can't be read
+     */
+    InputStream open(@NotNull Path input) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(input), BLOCK_SIZE);
+        in.mark(2);
+        boolean gzip = in.read() == 0x1f && in.read() == 0x8b;
+        in.reset();
+        if (!gzip)
+            return in;
+        in.close();
+        return new ParallelGzipInputStream(FileChannel.open(input), workers, ringSize);
+    }
+
+    @FunctionalInterface
+    interface BlockSink {
+        void accept(byte[] block, int length) throws InterruptedException;
+    }
+
+    /**
+     * Cut the input into blocks of whole lines (the last one may not end
+     * with a new line) and give each one to the sink.
+     * A block is never reused once given away.
+     *
+     * @param in - to be cut
+     * @param sink - to be given the blocks
+     * @throws IOException - if reading fails
+     * @throws InterruptedException - if the sink is interrupted
+     */
+    static void blocks(@NotNull InputStream in, @NotNull BlockSink sink) throws IOException, InterruptedException {
+        byte[] buffer = new byte[BLOCK_SIZE];
+        int filled = 0;
+        while (true) {
+            filled += in.readNBytes(buffer, filled, buffer.length - filled);
+            if (filled < buffer.length)
+                break; // end of the input
+            int end = filled;
+            while (end > 0 && buffer[end - 1] != '\n')
+                end--;
+            if (end == 0) {
+                // a very long line, so make room for the rest of it
+                buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+                continue;
+            }
+            byte[] next = new byte[Math.max(BLOCK_SIZE, 2 * (filled - end))];
+            System.arraycopy(buffer, end, next, 0, filled - end);
+            sink.accept(buffer, end);
+            buffer = next;
+            filled -= end;
+        }
+        if (filled > 0)
+            sink.accept(buffer, filled);
+    }
+
+    /**
+     * Convert each line in the block.
+     * Blank lines are skipped.
+     *
+     * @param block - containing lines
+     * @param length - of the lines in the block
+     * @return the output for the block
+     */
+    static Result convertBlock(byte[] block, int length) {
+        return convertBlock(block, length, null);
+    }
+
+    /**
+     * Convert each line in the block, using the cache.
+     * Blank lines are skipped.
+     * This is the batch for both the converter and RomanDirectoryWatcher,
+     * so records a ParseBatchEvent for the block.
+     *
+     * @param block - containing lines
+     * @param length - of the lines in the block
+     * @param cache - of results, or null for none
+     * @return the output for the block
+     */
+    static Result convertBlock(byte[] block, int length, @Nullable RomanResultCache cache) {
+        ParseBatchEvent batch = new ParseBatchEvent();
+        batch.begin();
+        StringBuilder output = new StringBuilder(length * 2);
+        int count = 0;
+        int errors = 0;
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (end < length && block[end] != '\n')
+                end++;
+            int next = end + 1;
+            if (end > start && block[end - 1] == '\r')
+                end--; // windows line end
+            String line = new String(block, start, end - start, StandardCharsets.UTF_8);
+            if (!line.isBlank()) {
+                count++;
+                try {
+                    int value = cache != null? cache.parse(line): Roman.valueOf(line).intValue();
+                    output.append(line).append(" is ").append(value).append('\n');
+                } catch (NumberFormatException e) {
+                    errors++;
+                    output.append(line).append(" returned NumberFormatException: ").append(e.getMessage()).append('\n');
+                }
+            }
+            start = next;
+        }
+        batch.finish(cache != null? "RomanResultCache": "Roman", count, errors);
+        return new Result(output.toString().getBytes(StandardCharsets.UTF_8), errors);
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: RomanFileConverter input [output [cache]]");
+            System.exit(2);
+        }
+        long errors;
+        try (RomanResultCache cache = args.length > 2? RomanResultCache.open(Path.of(args[2]), 1 << 20): null;
+             RomanFileConverter converter = new RomanFileConverter(Runtime.getRuntime().availableProcessors(), cache)) {
+            if (args.length > 1) {
+                try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(Path.of(args[1])), BLOCK_SIZE)) {
+                    errors = converter.convert(Path.of(args[0]), output);
+                }
+            } else {
+                errors = converter.convert(Path.of(args[0]), System.out);
+            }
+        }
+        if (errors > 0) {
+            if (errors > 1)
+                System.err.println(errors + " errors detected!");
+            else
+                System.err.println(errors + " error detected!");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.tinkabell.roman;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A throughput benchmark: how fast a file of numerals can be read plain,
+ * through GZIPInputStream, and through ParallelGzipInputStream, when
+ * compressed as several gzip members.
+ *
+ * The file is made by RomanWorkload, and each way of reading it takes
+ * turns, so none gets a warmer JVM (or file cache) than the others.
+ */
+public class RomanGzipBenchmark {
+
+    private RomanGzipBenchmark() {
+        // only static methods
+    }
+
+    /**
+     * Write the records as gzip members of about the given size.
+     *
+     * @param plain - file of records
+     * @param gzip - to write the members to
+     * @param memberSize - bytes of records in each member
+     * @throws IOException - if reading or writing fails
+     */
+    static void writeMembers(Path plain, Path gzip, int memberSize) throws IOException {
+        try (InputStream in = Files.newInputStream(plain);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(gzip))) {
+            for (byte[] bytes = in.readNBytes(memberSize); bytes.length > 0; bytes = in.readNBytes(memberSize)) {
+                GZIPOutputStream member = new GZIPOutputStream(out, RomanFileConverter.BLOCK_SIZE);
+                member.write(bytes);
+                member.finish(); // but leave the file open
+            }
+        }
+    }
+
+    /**
+     * Read the stream to the end.
+     *
+     * @return the number of bytes read
+     */
+    private static long drain(InputStream in) throws IOException {
+        try (in) {
+            byte[] buffer = new byte[RomanFileConverter.BLOCK_SIZE];
+            long total = 0;
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer))
+                total += n;
+            return total;
+        }
+    }
+
+    private static long median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static double rate(long bytes, long nanos) {
+        return bytes * 1000.0 / nanos; // MB a second
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 3) {
+            System.err.println("Usage: RomanGzipBenchmark [records [memberBytes [rounds]]]");
+            System.exit(2);
+        }
+        long records = args.length > 0? Long.parseLong(args[0]): 20_000_000;
+        int memberSize = args.length > 1? Integer.parseInt(args[1]): 16 << 20;
+        int rounds = args.length > 2? Integer.parseInt(args[2]): 5;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path plain = Files.createTempFile("roman", ".txt");
+        Path gzip = Files.createTempFile("roman", ".txt.gz");
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long bytes;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(plain))) {
+                bytes = new RomanWorkload(0).write(out, records);
+            }
+            writeMembers(plain, gzip, memberSize);
+            long[] plainNanos = new long[rounds];
+            long[] gzipNanos = new long[rounds];
+            long[] parallelNanos = new long[rounds];
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                drain(Files.newInputStream(plain));
+                plainNanos[round] = System.nanoTime() - start;
+                start = System.nanoTime();
+                drain(new GZIPInputStream(Files.newInputStream(gzip), RomanFileConverter.BLOCK_SIZE));
+                gzipNanos[round] = System.nanoTime() - start;
+                start = System.nanoTime();
+                long read = drain(new ParallelGzipInputStream(FileChannel.open(gzip), executor, 2 * threads));
+                parallelNanos[round] = System.nanoTime() - start;
+                if (read != bytes)
+                    throw new IOException("Read " + read + " bytes of " + bytes);
+            }
+            System.out.printf("%d MB in %d MB members, %d threads: plain %.0f MB/s, "
+                            + "GZIPInputStream %.0f MB/s, ParallelGzipInputStream %.0f MB/s%n",
+                    bytes >> 20, memberSize >> 20, threads, rate(bytes, median(plainNanos)),
+                    rate(bytes, median(gzipNanos)), rate(bytes, median(parallelNanos)));
+        } finally {
+            executor.shutdown();
+            Files.delete(plain);
+            Files.delete(gzip);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.tinkabell.roman;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Check roman numerals as they are typed, a character at a time,
+ * for interactive front ends.
+ *
+ * Each character typed pushes the state after it onto a stack, so
+ * appending and backspacing each take constant time, whatever has been
+ * typed already, and nothing is parsed again.
+ * Each entry on the stack is a single long:
+ *    bits 0-31   RomanValidator state
+ *    bits 32-45  value so far
+ *    bits 46-48  index + 1 of the last numeral (0 if none)
+ * The value is kept as the numerals go: each adds its own value, except
+ * that one bigger than the numeral before it (as in IV or CM) is only
+ * allowed as a subtraction, so it takes that one off twice.
+ *
+ * Once something invalid is typed, everything after it is invalid too,
+ * until enough is deleted.
+ */
+public class RomanInputValidator {
+
+    private static final long STATE_MASK = 0xFFFFFFFFL;
+    private static final int VALUE_SHIFT = 32;
+    private static final int VALUE_MASK = 0x3FFF;
+    private static final int LAST_SHIFT = 46;
+    private static final int LAST_MASK = 0x7;
+
+    private static final String numerals = "IVXLCDM";
+    private static final int[] values = {1, 5, 10, 50, 100, 500, 1000};
+
+    private final boolean strict;
+    private long[] stack = new long[16];
+    private int length;
+
+    /**
+     * Create a validator that accepts what RomanNumber.parse() does.
+     */
+    public RomanInputValidator() {
+        this(false);
+    }
+
+    /**
+     * Create a validator.
+     *
+     * @param strict - only accept canonical numerals, as RomanValidator does
+     */
+    public RomanInputValidator(boolean strict) {
+        this.strict = strict;
+    }
+
+    private long top() {
+        return length == 0? RomanValidator.START & STATE_MASK: stack[length - 1];
+    }
+
+    private static int state(long entry) {
+        return (int) entry;
+    }
+
+    private static int value(long entry) {
+        return (int) (entry >>> VALUE_SHIFT) & VALUE_MASK;
+    }
+
+    private static int last(long entry) {
+        return (int) (entry >>> LAST_SHIFT) & LAST_MASK;
+    }
+
+    /**
+     * Work out the entry after a character.
+     */
+    private long next(long entry, char c) {
+        int state = RomanValidator.next(state(entry), c, strict);
+        if (state < 0)
+            return RomanValidator.INVALID & STATE_MASK;
+        int index = RomanValidator.numeralIndex(c, strict);
+        if (index < 0)
+            return (entry & ~STATE_MASK) | (state & STATE_MASK); // whitespace
+        int value = value(entry) + values[index];
+        int last = last(entry) - 1;
+        if (last >= 0 && last < index)
+            value -= 2 * values[last]; // a subtraction
+        return (state & STATE_MASK) | (long) value << VALUE_SHIFT | (long) (index + 1) << LAST_SHIFT;
+    }
+
+    /**
+     * Type a character.
+     *
+     * @param c - typed
+     * @return true if what has been typed can still become valid
+     */
+    public boolean append(char c) {
+        if (length == stack.length)
+            stack = Arrays.copyOf(stack, 2 * length);
+        stack[length] = next(top(), c);
+        length++;
+        return canBecomeValid();
+    }
+
+    /**
+     * Type some characters.
+     *
+     * @param s - typed
+     * @return true if what has been typed can still become valid
+     */
+    public boolean append(@NotNull CharSequence s) {
+        for (int i = 0; i < s.length(); i++)
+            append(s.charAt(i));
+        return canBecomeValid();
+    }
+
+    /**
+     * Delete the last character typed.
+     *
+     * @return false if there was nothing to delete
+     */
+    public boolean backspace() {
+        if (length == 0)
+            return false;
+        length--;
+        return true;
+    }
+
+    /**
+     * Delete everything typed.
+     */
+    public void clear() {
+        length = 0;
+    }
+
+    /**
+     * @return the number of characters typed
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return true if what has been typed is a complete valid number
+     */
+    public boolean isValid() {
+        return RomanValidator.isComplete(state(top()));
+    }
+
+    /**
+     * Every valid prefix is either complete or can be made so,
+     * so this is just whether nothing invalid has been typed.
+     *
+     * @return true if what has been typed can still become valid
+     */
+    public boolean canBecomeValid() {
+        return state(top()) >= 0;
+    }
+
+    /**
+     * @return the value of what has been typed, or 0 if it is not valid
+     */
+    public int getValue() {
+        long entry = top();
+        return RomanValidator.isComplete(state(entry))? value(entry): 0;
+    }
+
+    /**
+     * @return which numerals may be typed next, as a bit (1 for I to 64 for M) for each
+     */
+    public int nextNumeralBits() {
+        int state = state(top());
+        int bits = 0;
+        for (int index = 0; index < numerals.length(); index++)
+            if (RomanValidator.next(state, numerals.charAt(index), strict) >= 0)
+                bits |= 1 << index;
+        return bits;
+    }
+
+    /**
+     * @return the (uppercase) numerals that may be typed next, smallest first
+     */
+    public String getNextNumerals() {
+        int bits = nextNumeralBits();
+        StringBuilder next = new StringBuilder(numerals.length());
+        for (int index = 0; index < numerals.length(); index++)
+            if ((bits & 1 << index) != 0)
+                next.append(numerals.charAt(index));
+        return next.toString();
+    }
+
+    /**
+     * Time typing and deleting, to show each keystroke takes constant time.
+     */
+    public static void main(String[] args) {
+        if (args.length > 1) {
+            System.err.println("Usage: RomanInputValidator [numerals]");
+            System.exit(2);
+        }
+        String typing = args.length > 0? args[0]: "MMMDCCCLXXXVIII";
+        RomanInputValidator input = new RomanInputValidator();
+        long checksum = 0;
+        long start = 0;
+        long operations = 0;
+        for (int round = 0; round < 2_000_000; round++) {
+            if (round == 1_000_000) {
+                start = System.nanoTime(); // warmed up
+                operations = 0;
+            }
+            input.clear();
+            for (int i = 0; i < typing.length(); i++) {
+                input.append(typing.charAt(i));
+                checksum += input.getValue() + input.nextNumeralBits();
+            }
+            for (int i = 0; i < typing.length(); i++) {
+                input.backspace();
+                checksum += input.getValue();
+            }
+            operations += 2L * typing.length();
+        }
+        double nanos = (double) (System.nanoTime() - start) / operations;
+        System.out.printf("%.1f ns per keystroke of %s (checksum %d)%n", nanos, typing, checksum);
+    }
+}
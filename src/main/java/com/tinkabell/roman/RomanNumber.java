@@ -183,6 +183,24 @@ public class RomanNumber {
      */
     public static int parse(@NotNull String s )
             throws NumberFormatException{
+        ParseEvent event = new ParseEvent(); // only recorded if slow
+        event.begin();
+        try {
+            int value = parseNumerals(s);
+            event.finish("RomanNumber", s, value, null);
+            return value;
+        } catch (NumberFormatException e) {
+            event.finish("RomanNumber", s, 0, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Parse as parse() does, but without recording a ParseEvent,
+     * for callers that record their own.
+     */
+    static int parseNumerals(@NotNull String s )
+            throws NumberFormatException{
         /*
         Back to the drawing board and programming 101:
         KISS!
@@ -283,7 +301,8 @@ public class RomanNumber {
     }
 
     /**
-     * Parse the given string as roman numerals.
+     * Parse the given string as roman numerals,
+     * or if it has any operators, evaluate it as a RomanExpression.
      * Print the input string and it's value
      * unless a NumberFormatError when we output the error message.
      *
@@ -293,10 +312,16 @@ public class RomanNumber {
     public static int parseAndPrint(String s){
         int error = 0;
         try {
-            System.out.println(s + " is " + RomanNumber.parse(s));
+            if (RomanExpression.isExpression(s))
+                System.out.println(s + " is " + RomanExpression.evaluate(s));
+            else
+                System.out.println(s + " is " + Roman.valueOf(s).intValue()); // from RomanTables
         } catch (NumberFormatException e){
             error = 1;
             System.out.println(s + " returned NumberFormatException: " + e.getMessage());
+        } catch (ArithmeticException e){
+            error = 1;
+            System.out.println(s + " returned ArithmeticException: " + e.getMessage());
         }
         return error;
     }
@@ -308,11 +333,16 @@ public class RomanNumber {
          */
         if (args.length > 0) {
             // command line input, just process args:
-            int errors = Arrays.stream(args)
+            ParseBatchEvent batch = new ParseBatchEvent();
+            batch.begin();
+            List<String> inputs = Arrays.stream(args)
                     .map(s -> (s.split("/b")))
                     .flatMap(Arrays::stream)
+                    .toList();
+            int errors = inputs.stream()
                     .map(RomanNumber::parseAndPrint)
                     .reduce(0, Integer::sum);
+            batch.finish("RomanNumber", inputs.size(), errors);
             if (errors > 0) {
                 if (errors > 1)
                     System.out.println(errors + " errors detected!");
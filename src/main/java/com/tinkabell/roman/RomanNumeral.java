@@ -344,6 +344,20 @@ public class RomanNumeral {
      */
     public static int parse(@NotNull String s )
             throws NumberFormatException{
+        ParseEvent event = new ParseEvent(); // only recorded if slow
+        event.begin();
+        try {
+            int value = parseNumerals(s);
+            event.finish("RomanNumeral", s, value, null);
+            return value;
+        } catch (NumberFormatException e) {
+            event.finish("RomanNumeral", s, 0, e.getMessage());
+            throw e;
+        }
+    }
+
+    private static int parseNumerals(@NotNull String s )
+            throws NumberFormatException{
         int value;
         String validated = s.trim().toUpperCase();
         Optional<RomanNumeral> romanNumeral = s.trim()
@@ -400,11 +414,16 @@ public class RomanNumeral {
          */
         if (args.length > 0) {
             // command line input, just process args:
-            int errors = Arrays.stream(args)
+            ParseBatchEvent batch = new ParseBatchEvent();
+            batch.begin();
+            List<String> inputs = Arrays.stream(args)
                     .map(s -> (s.split("/b")))
                     .flatMap(Arrays::stream)
+                    .toList();
+            int errors = inputs.stream()
                     .map(RomanNumeral::parseAndPrint)
                     .reduce(0, Integer::sum);
+            batch.finish("RomanNumeral", inputs.size(), errors);
             if (errors > 0) {
                 if (errors > 1)
                     System.out.println(errors + " errors detected!");
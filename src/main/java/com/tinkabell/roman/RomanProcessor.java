@@ -0,0 +1,278 @@
+package com.tinkabell.roman;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A reactive stream stage that converts strings of roman numerals.
+ *
+ * Unlike the Scanner loop in main(), this applies back pressure:
+ * upstream is only ever asked for as many strings as there is room for
+ * in a bounded buffer, and downstream only gets as many conversions as
+ * it has requested.
+ *
+ * To amortise the cost of the handshake, upstream is requested in
+ * batches (half the buffer at a time) and each drain task on the executor
+ * converts as many items as the current demand allows, rather than
+ * scheduling a task per item.
+ *
+ * Invalid numerals do not terminate the stream: they are passed on
+ * as a Conversion with an error and no value.
+ * Only one subscriber is supported.
+ */
+public class RomanProcessor implements Flow.Processor<String, RomanProcessor.Conversion> {
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * The outcome of converting one string.
+     *
+     * @param numerals - the string as received
+     * @param roman - the value, or null if an error
+     * @param error - the error message, or null if valid
+     */
+    public record Conversion(String numerals, Roman roman, String error) {
+        public boolean isValid() {
+            return roman != null;
+        }
+    }
+
+    private final Executor executor;
+    private final int batchSize;
+    private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger buffered = new AtomicInteger(); // size of queue
+    private final AtomicInteger wip = new AtomicInteger(); // drain requests outstanding
+    private final AtomicLong demand = new AtomicLong(); // requested by downstream
+    private volatile int highWater; // most ever buffered
+
+    private volatile Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super Conversion> downstream;
+    private volatile boolean subscribed; // downstream's onSubscribe has returned
+    private volatile boolean done; // upstream has finished
+    private volatile Throwable failure; // and why, if it failed
+    private volatile boolean cancelled; // downstream has gone
+    private volatile Throwable invalidRequest; // downstream broke rule 3.9
+    private boolean terminated; // downstream told we have finished (drain loop only)
+    private int consumed; // taken from queue since last upstream request (drain loop only)
+
+    /**
+     * Create a processor draining on the common pool.
+     */
+    public RomanProcessor() {
+        this(ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Create a processor.
+     * Any executor will do, for example a virtual thread per task executor
+     * where available, as only one drain task runs at a time.
+     *
+     * @param executor - to run the conversions on
+     * @param batchSize - number of strings requested from upstream at once
+     */
+    public RomanProcessor(@NotNull Executor executor, int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return the maximum number of strings this will ever buffer
+     */
+    public int getCapacity() {
+        return 2 * batchSize;
+    }
+
+    /**
+     * @return the most strings that have been buffered at any one time
+     */
+    public int getHighWater() {
+        return highWater;
+    }
+
+    @Override
+    public void onSubscribe(@NotNull Flow.Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel(); // only one upstream allowed
+            return;
+        }
+        upstream = subscription;
+        subscription.request(getCapacity()); // fill the buffer
+    }
+
+    @Override
+    public void onNext(@NotNull String item) {
+        queue.offer(item);
+        int size = buffered.incrementAndGet();
+        if (size > highWater)
+            highWater = size; // only an indication, so racing updates are ok
+        drain();
+    }
+
+    @Override
+    public void onError(@NotNull Throwable throwable) {
+        failure = throwable;
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void subscribe(@NotNull Flow.Subscriber<? super Conversion> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber must not be null"); // rule 1.9
+        synchronized (this) {
+            if (downstream != null) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    public void request(long n) {}
+                    public void cancel() {}
+                });
+                subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+                return;
+            }
+            downstream = subscriber;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    // rule 3.9: stop upstream, and tell downstream now, not after what is buffered
+                    invalidRequest = new IllegalArgumentException("Request must be positive: " + n);
+                    cancelUpstream();
+                    drain();
+                    return;
+                }
+                // add to demand, but unbounded if it overflows
+                demand.getAndUpdate(current -> current + n < 0? Long.MAX_VALUE: current + n);
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                cancelUpstream();
+            }
+        });
+        // only now may the drain loop signal it (rules 1.3 and 1.9)
+        subscribed = true;
+        drain(); // in case we already have items, an error or completion
+    }
+
+    private void cancelUpstream() {
+        Flow.Subscription subscription = upstream;
+        if (subscription != null)
+            subscription.cancel();
+    }
+
+    /**
+     * Schedule the drain loop unless it is already running,
+     * in which case it will go round again.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() == 0)
+            executor.execute(this::drainLoop);
+    }
+
+    private void drainLoop() {
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super Conversion> subscriber = subscribed? downstream: null;
+            Throwable invalid = invalidRequest;
+            if (subscriber != null && !terminated && invalid != null)
+                terminate(subscriber, invalid);
+            if (subscriber != null && !terminated) {
+                ParseBatchEvent batch = new ParseBatchEvent(); // this pass's conversions
+                batch.begin();
+                long requested = demand.get();
+                long emitted = 0;
+                long errors = 0;
+                while (emitted < requested && !cancelled) {
+                    String item = queue.poll();
+                    if (item == null)
+                        break; // nothing more to convert yet
+                    buffered.decrementAndGet();
+                    Conversion conversion = convert(item);
+                    if (!conversion.isValid())
+                        errors++;
+                    try {
+                        subscriber.onNext(conversion);
+                    } catch (Throwable e) {
+                        // rule 2.13: a subscriber that throws has gone, so stop upstream and say why
+                        cancelled = true;
+                        cancelUpstream();
+                        terminate(subscriber, e);
+                        break;
+                    }
+                    emitted++;
+                    if (++consumed == batchSize) {
+                        // room for another batch
+                        consumed = 0;
+                        upstream.request(batchSize);
+                    }
+                }
+                if (emitted > 0) {
+                    batch.finish("RomanProcessor", emitted, errors);
+                    if (requested != Long.MAX_VALUE)
+                        demand.addAndGet(-emitted);
+                }
+                if (cancelled) {
+                    terminated = true;
+                    queue.clear();
+                    buffered.set(0);
+                } else if (!terminated && done && queue.isEmpty()) {
+                    terminate(subscriber, failure);
+                }
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Tell downstream we have finished, and forget anything buffered.
+     * If it throws there is nobody left to tell, but the drain loop must
+     * still go on, or it would never run again.
+     *
+     * @param subscriber - downstream
+     * @param error - why, or null if complete
+     */
+    private void terminate(Flow.Subscriber<? super Conversion> subscriber, Throwable error) {
+        terminated = true;
+        queue.clear();
+        buffered.set(0);
+        try {
+            if (error != null)
+                subscriber.onError(error);
+            else
+                subscriber.onComplete();
+        } catch (Throwable e) {
+            // rule 2.13, nothing more we can do
+        }
+    }
+
+    /**
+     * Convert a single string into its outcome.
+     *
+     * @param numerals - the string to convert
+     * @return the outcome
+     */
+    public static Conversion convert(@NotNull String numerals) {
+        try {
+            return new Conversion(numerals, Roman.valueOf(numerals), null);
+        } catch (NumberFormatException e) {
+            return new Conversion(numerals, null, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.tinkabell.roman;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A lazily enumerated range of roman numbers, from a start value
+ * up to (and including) an end value, in steps.
+ *
+ * Rather than formatting every value from scratch, a Cursor keeps the
+ * decimal digits of the current value (like the per-order digits of
+ * RomanNumeral) and a buffer of numerals for them.
+ * Moving on by the step adds to the digits with carry and only the
+ * numerals of the orders that changed (and those after them, as they
+ * may have moved) are rewritten.
+ * For a step of one, that is usually just the units.
+ *
+ * The stream() is splittable by index, so can be enumerated in parallel.
+ */
+public class RomanRange implements Iterable<String> {
+
+    private static final int orders = Roman.digitNumerals.length; // four digits
+
+    private final int from;
+    private final int step;
+    private final long count;
+
+    /**
+     * Create a range.
+     *
+     * @param from - first value (1 to 9999)
+     * @param to - last value (1 to 9999), can be less than from for an empty range
+     * @param step - increment between values (positive)
+     * @throws IllegalArgumentException - if any are out of range
+     */
+    public RomanRange(int from, int to, int step) throws IllegalArgumentException {
+        if (from < Roman.MIN_VALUE || from > Roman.MAX_VALUE)
+            throw new IllegalArgumentException("From " + from + " is out of range");
+        if (to < Roman.MIN_VALUE || to > Roman.MAX_VALUE)
+            throw new IllegalArgumentException("To " + to + " is out of range");
+        if (step < 1)
+            throw new IllegalArgumentException("Step must be positive: " + step);
+        this.from = from;
+        this.step = step;
+        this.count = from > to? 0: (to - from) / step + 1;
+    }
+
+    /**
+     * Create a range of consecutive values.
+     *
+     * @param from - first value (1 to 9999)
+     * @param to - last value (1 to 9999)
+     */
+    public RomanRange(int from, int to) {
+        this(from, to, 1);
+    }
+
+    public long size() {
+        return count;
+    }
+
+    /**
+     * @return a new cursor positioned before the first value of this range
+     */
+    public Cursor cursor() {
+        return new Cursor(from, step, count);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        Cursor cursor = cursor();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public String next() {
+                if (!cursor.advance())
+                    throw new NoSuchElementException();
+                return cursor.toString();
+            }
+        };
+    }
+
+    /**
+     * @return a sequential stream of the numerals in this range
+     */
+    public Stream<String> stream() {
+        return StreamSupport.stream(new RangeSpliterator(0, count), false);
+    }
+
+    /**
+     * @return a parallel stream of the numerals in this range
+     */
+    public Stream<String> parallelStream() {
+        return StreamSupport.stream(new RangeSpliterator(0, count), true);
+    }
+
+    /**
+     * A position within a range.
+     * The cursor is a CharSequence of the current numerals, backed by a
+     * reusable buffer, so it is only valid until the next advance().
+     */
+    public static final class Cursor implements CharSequence {
+
+        private final int step;
+        private final int[] stepDigits = new int[orders]; // step as digits - units first
+        private final int[] digits = new int[orders]; // current value as digits - units first
+        private final int[] start = new int[orders]; // where each order's numerals start in the buffer
+        private final char[] buffer = new char[21]; // longest is 9888
+        private int length; // of numerals in the buffer
+        private int value;
+        private long remaining;
+        private boolean started;
+
+        private Cursor(int first, int step, long count) {
+            this.step = step;
+            this.value = first;
+            this.remaining = count;
+            for (int order = 0, power = 1; order < orders; order++, power *= 10) {
+                digits[order] = (first / power) % 10;
+                stepDigits[order] = (step / power) % 10;
+            }
+        }
+
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        /**
+         * Move to the next value in the range.
+         *
+         * @return false if there are no more
+         */
+        public boolean advance() {
+            if (remaining <= 0)
+                return false;
+            remaining--;
+            if (!started) {
+                started = true;
+                render(orders - 1); // everything
+            } else {
+                value += step;
+                // add the step with carry, remembering the highest order changed
+                int changed = -1;
+                int carry = 0;
+                for (int order = 0; order < orders; order++) {
+                    int add = stepDigits[order] + carry;
+                    if (add != 0) {
+                        int digit = digits[order] + add;
+                        carry = digit / 10;
+                        digits[order] = digit % 10;
+                        changed = order;
+                    }
+                }
+                render(changed);
+            }
+            return true;
+        }
+
+        /**
+         * Rewrite the numerals from the given order down to the units.
+         *
+         * @param highest - the most significant order that changed
+         */
+        private void render(int highest) {
+            int position = start[highest]; // the thousands always start at 0
+            for (int order = highest; order >= 0; order--) {
+                start[order] = position;
+                char[] numerals = Roman.digitNumerals[order][digits[order]];
+                System.arraycopy(numerals, 0, buffer, position, numerals.length);
+                position += numerals.length;
+            }
+            length = position;
+        }
+
+        /**
+         * @return the value of the current numerals
+         */
+        public int getValue() {
+            return value;
+        }
+
+        /**
+         * Copy the current numerals into the given array.
+         *
+         * @param destination - to copy to
+         * @param offset - where to start in the destination
+         * @return the number of characters copied
+         */
+        public int getChars(char @NotNull [] destination, int offset) {
+            System.arraycopy(buffer, 0, destination, offset, length);
+            return length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length)
+                throw new IndexOutOfBoundsException(index);
+            return buffer[index];
+        }
+
+        @Override
+        public @NotNull CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public @NotNull String toString() {
+            return new String(buffer, 0, length);
+        }
+    }
+
+    /**
+     * Spliterator over the indexes [low, high) of the range.
+     * It is only split before it starts, as the cursor is created lazily.
+     */
+    private final class RangeSpliterator implements Spliterator<String> {
+
+        private long low;
+        private final long high;
+        private Cursor cursor;
+
+        private RangeSpliterator(long low, long high) {
+            this.low = low;
+            this.high = high;
+        }
+
+        private Cursor cursor() {
+            if (cursor == null)
+                cursor = new Cursor((int) (from + low * step), step, high - low);
+            return cursor;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            if (!cursor().advance())
+                return false;
+            low++;
+            action.accept(cursor.toString());
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super String> action) {
+            Cursor cursor = cursor();
+            while (cursor.advance())
+                action.accept(cursor.toString());
+            low = high;
+        }
+
+        @Override
+        public Spliterator<String> trySplit() {
+            long middle = (low + high) >>> 1;
+            if (cursor != null || middle <= low)
+                return null;
+            Spliterator<String> prefix = new RangeSpliterator(low, middle);
+            low = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return high - low;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+}
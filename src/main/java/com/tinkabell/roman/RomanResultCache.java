@@ -0,0 +1,342 @@
+package com.tinkabell.roman;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A cache of parse results in a memory mapped file, so it outlives the
+ * process and can be shared by several processes on the same host.
+ *
+ * It is an open addressing hash table of fixed size slots, keyed by the
+ * normalized input (trimmed and in uppercase), holding the value or
+ * INVALID.
+ * Inputs that are not ascii, or are longer than MAX_KEY once trimmed,
+ * are never cached.
+ *
+ * The file is:
+ *    header (64 bytes) - magic, version, number of slots, and the count
+ *                        of entries ever put
+ *    slots (64 bytes each) - stamp (8), hash (4), result (4),
+ *                            key length (1), key (MAX_KEY)
+ * A stamp of zero is an empty slot, an odd stamp is a slot being written
+ * and an even stamp is the sequence number of the put that wrote it.
+ *
+ * Only one process (the one holding the lock on the header) can put, and
+ * its threads take turns.
+ * It marks a slot odd, writes it, then publishes it with its new even
+ * stamp, so readers (in any process) can read without locking, ignoring
+ * a slot if its stamp is odd or changes while they read it.
+ * The file never grows: a key is only looked for in the PROBES slots
+ * from its hash, and when they are all in use the oldest of them is
+ * evicted.
+ */
+public final class RomanResultCache implements AutoCloseable {
+
+    public static final int MISS = 0; // not in the cache
+    public static final int INVALID = -1; // numerals are not valid
+    public static final int MAX_KEY = 47; // longest key in bytes
+
+    private static final int MAGIC = 0x524F4D43; // "ROMC"
+    private static final int VERSION = 1;
+    private static final int HEADER = 64;
+    private static final int SLOT = 64;
+    private static final int PROBES = 8;
+    private static final long CREATION_TIMEOUT = 10_000_000_000L; // for a reader to wait for the writer
+
+    // header
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int SLOTS_OFFSET = 8;
+    private static final int SEQUENCE_OFFSET = 16;
+
+    // slot
+    private static final int STAMP_OFFSET = 0;
+    private static final int HASH_OFFSET = 8;
+    private static final int RESULT_OFFSET = 12;
+    private static final int LENGTH_OFFSET = 16;
+    private static final int KEY_OFFSET = 17;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel channel;
+    private final FileLock lock; // null if only reading
+    private final MappedByteBuffer buffer;
+    private final int mask;
+
+    private RomanResultCache(FileChannel channel, FileLock lock, MappedByteBuffer buffer, int slots) {
+        this.channel = channel;
+        this.lock = lock;
+        this.buffer = buffer;
+        mask = slots - 1;
+    }
+
+    /**
+     * Open the cache, creating it if need be.
+     * The first to open it becomes the writer, anyone else can only read
+     * until the writer closes it.
+     * A file left without its magic number, by a crash while it was being
+     * created, is created again by the next writer, and a reader opening
+     * it while it is being created waits for it.
+     *
+     * @param file - of the cache
+     * @param slots - number of slots if it is created (a power of two, at least PROBES)
+     * @return the cache
+     * @throws IOException - if it can't be opened, is not a cache, or is never created
+     */
+    public static @NotNull RomanResultCache open(@NotNull Path file, int slots) throws IOException {
+        if (slots < PROBES || Integer.bitCount(slots) != 1 || slots > (Integer.MAX_VALUE - HEADER) / SLOT)
+            throw new IllegalArgumentException("Slots must be a power of two from " + PROBES + ": " + slots);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long deadline = System.nanoTime() + CREATION_TIMEOUT;
+            while (true) {
+                FileLock lock;
+                try {
+                    lock = channel.tryLock(0, HEADER, false);
+                } catch (OverlappingFileLockException e) {
+                    lock = null; // another writer in this process
+                }
+                int magic = channel.size() < HEADER? 0: (int) INTS.getAcquire(
+                        channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER), MAGIC_OFFSET);
+                if (lock != null && magic == 0)
+                    return create(channel, lock, slots);
+                if (magic != 0)
+                    return existing(file, channel, lock);
+                // the writer is still creating it
+                if (System.nanoTime() - deadline > 0)
+                    throw new IOException("Roman cache not created in time: " + file);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for " + file);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Set up a new file, or one left half set up, publishing the magic number last.
+     */
+    private static RomanResultCache create(FileChannel channel, FileLock lock, int slots) throws IOException {
+        boolean recovering = channel.size() > 0;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) slots * SLOT);
+        if (recovering) {
+            // no one can have read anything from it, so just clear it all
+            for (int i = 0; i < buffer.capacity(); i += Long.BYTES)
+                LONGS.set(buffer, i, 0L);
+        }
+        INTS.set(buffer, VERSION_OFFSET, VERSION);
+        INTS.set(buffer, SLOTS_OFFSET, slots);
+        INTS.setRelease(buffer, MAGIC_OFFSET, MAGIC);
+        buffer.force();
+        return new RomanResultCache(channel, lock, buffer, slots);
+    }
+
+    private static RomanResultCache existing(Path file, FileChannel channel, FileLock lock) throws IOException {
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+        if ((int) INTS.getAcquire(header, MAGIC_OFFSET) != MAGIC || (int) INTS.get(header, VERSION_OFFSET) != VERSION)
+            throw new IOException("Not a roman cache: " + file);
+        int existing = (int) INTS.get(header, SLOTS_OFFSET);
+        if (existing < PROBES || Integer.bitCount(existing) != 1 || channel.size() < HEADER + (long) existing * SLOT)
+            throw new IOException("Corrupt roman cache: " + file);
+        MappedByteBuffer buffer = channel.map(lock != null? FileChannel.MapMode.READ_WRITE: FileChannel.MapMode.READ_ONLY,
+                0, HEADER + (long) existing * SLOT);
+        return new RomanResultCache(channel, lock, buffer, existing);
+    }
+
+    /**
+     * @return true if this can put into the cache
+     */
+    public boolean isWriter() {
+        return lock != null;
+    }
+
+    /**
+     * @return the number of slots
+     */
+    public int getSlots() {
+        return mask + 1;
+    }
+
+    /**
+     * @return the number of entries ever put (by any process)
+     */
+    public long getPuts() {
+        return (long) LONGS.getAcquire(buffer, SEQUENCE_OFFSET);
+    }
+
+    private static int upper(char c) {
+        return c >= 'a' && c <= 'z'? c - ('a' - 'A'): c;
+    }
+
+    private static int start(CharSequence s) {
+        int start = 0;
+        while (start < s.length() && s.charAt(start) <= ' ')
+            start++;
+        return start;
+    }
+
+    private static int end(CharSequence s, int start) {
+        int end = s.length();
+        while (end > start && s.charAt(end - 1) <= ' ')
+            end--;
+        return end;
+    }
+
+    /**
+     * FNV-1a of the normalized key.
+     *
+     * @return the hash, or 0 if it can't be a key
+     */
+    private static int hash(CharSequence s, int start, int end) {
+        if (end - start > MAX_KEY)
+            return 0;
+        int hash = 0x811C9DC5;
+        for (int i = start; i < end; i++) {
+            int c = upper(s.charAt(i));
+            if (c >= 0x80)
+                return 0;
+            hash = (hash ^ c) * 0x01000193;
+        }
+        return hash == 0? 1: hash;
+    }
+
+    private static int slot(int index) {
+        return HEADER + index * SLOT;
+    }
+
+    private boolean matches(int slot, CharSequence s, int start, int end) {
+        if ((buffer.get(slot + LENGTH_OFFSET) & 0xFF) != end - start)
+            return false;
+        for (int i = start, key = slot + KEY_OFFSET; i < end; i++, key++)
+            if (buffer.get(key) != upper(s.charAt(i)))
+                return false;
+        return true;
+    }
+
+    /**
+     * Look up the numerals.
+     *
+     * @param numerals - to look up
+     * @return their value, INVALID, or MISS if not cached
+     */
+    public int get(@NotNull CharSequence numerals) {
+        int start = start(numerals);
+        int end = end(numerals, start);
+        int hash = hash(numerals, start, end);
+        if (hash == 0)
+            return MISS;
+        for (int probe = 0; probe < PROBES; probe++) {
+            int slot = slot((hash + probe) & mask);
+            long stamp = (long) LONGS.getAcquire(buffer, slot + STAMP_OFFSET);
+            if (stamp == 0)
+                return MISS; // nothing has been put past here
+            if ((stamp & 1) != 0 || (int) INTS.get(buffer, slot + HASH_OFFSET) != hash)
+                continue;
+            boolean matches = matches(slot, numerals, start, end);
+            int result = (int) INTS.get(buffer, slot + RESULT_OFFSET);
+            VarHandle.acquireFence(); // finish reading before checking the stamp again
+            if (matches && (long) LONGS.get(buffer, slot + STAMP_OFFSET) == stamp)
+                return result;
+        }
+        return MISS;
+    }
+
+    /**
+     * Put the result for the numerals, evicting the oldest entry near it if need be.
+     *
+     * @param numerals - to put
+     * @param result - their value, or INVALID
+     * @return false if not put, as not the writer or it can't be a key
+     */
+    public boolean put(@NotNull CharSequence numerals, int result) {
+        if (result != INVALID && (result < Roman.MIN_VALUE || result > Roman.MAX_VALUE))
+            throw new IllegalArgumentException("Not a value or INVALID: " + result);
+        if (lock == null)
+            return false;
+        int start = start(numerals);
+        int end = end(numerals, start);
+        int hash = hash(numerals, start, end);
+        if (hash == 0)
+            return false;
+        synchronized (this) {
+            // use the slot with this key, or the first free one, or else the oldest
+            int chosen = -1;
+            long oldest = Long.MAX_VALUE;
+            for (int probe = 0; probe < PROBES; probe++) {
+                int slot = slot((hash + probe) & mask);
+                long stamp = (long) LONGS.get(buffer, slot + STAMP_OFFSET);
+                if (stamp == 0 || ((int) INTS.get(buffer, slot + HASH_OFFSET) == hash && matches(slot, numerals, start, end))) {
+                    chosen = slot;
+                    break;
+                }
+                if (stamp < oldest) {
+                    oldest = stamp;
+                    chosen = slot;
+                }
+            }
+            long sequence = (long) LONGS.get(buffer, SEQUENCE_OFFSET) + 1;
+            LONGS.setOpaque(buffer, chosen + STAMP_OFFSET, (sequence << 1) | 1); // being written
+            VarHandle.storeStoreFence();
+            INTS.set(buffer, chosen + HASH_OFFSET, hash);
+            INTS.set(buffer, chosen + RESULT_OFFSET, result);
+            buffer.put(chosen + LENGTH_OFFSET, (byte) (end - start));
+            for (int i = start, key = chosen + KEY_OFFSET; i < end; i++, key++)
+                buffer.put(key, (byte) upper(numerals.charAt(i)));
+            LONGS.setRelease(buffer, chosen + STAMP_OFFSET, sequence << 1); // published
+            LONGS.setRelease(buffer, SEQUENCE_OFFSET, sequence);
+        }
+        return true;
+    }
+
+    /**
+     * Parse the numerals as Roman.valueOf() does, using the cache,
+     * and putting the result if it wasn't already there.
+     * The message for invalid numerals isn't cached, so they are parsed
+     * again to get it.
+     *
+     * @param numerals - to parse
+     * @return their value
+     * @throws NumberFormatException - if the numerals are not valid
+     */
+    public int parse(@NotNull CharSequence numerals) throws NumberFormatException {
+        int result = get(numerals);
+        if (result > 0)
+            return result;
+        if (result == INVALID)
+            return Roman.valueOf(numerals).intValue(); // throws, with the reason
+        try {
+            int value = Roman.valueOf(numerals).intValue();
+            put(numerals, value);
+            return value;
+        } catch (NumberFormatException e) {
+            put(numerals, INVALID);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (lock != null) {
+            buffer.force();
+            lock.release();
+        }
+        channel.close();
+    }
+}
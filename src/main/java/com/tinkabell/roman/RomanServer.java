@@ -0,0 +1,273 @@
+package com.tinkabell.roman;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * A server of a simple line protocol on the loopback interface:
+ * each line sent is a roman number, and for each a line is sent back
+ * with its value, or "ERROR " and why it is not valid.
+ *
+ * All connections are served by one thread with a Selector, and clients
+ * can send as many lines as they like without waiting for the answers.
+ * Each connection has a direct buffer of what has been read and one of
+ * what is to be written.
+ * When readable, the complete lines read are parsed in the buffer, using
+ * PackedRomanNumeral so nothing is allocated unless a line is invalid,
+ * and all their answers are written together.
+ * If the answers can't all be written, the connection isn't read again
+ * until they have been, so a client that doesn't read its answers
+ * only holds up itself.
+ * Closing the server hangs up on every connection, which the serving
+ * thread does on its way out, so nothing is closed under it.
+ */
+public class RomanServer implements AutoCloseable {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final int MAX_ANSWER = 256; // longest answer, error messages are cut short to fit
+
+    private static final byte[] ERROR = "ERROR ".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * What has been read from, and is to be written to, a connection.
+     */
+    private static class Connection {
+        final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        Connection() {
+            out.flip(); // nothing to write yet
+        }
+    }
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private Thread thread;
+    private volatile boolean closing;
+
+    /**
+     * Create a server on the loopback interface.
+     *
+     * @param port - to listen on, or 0 for any free one
+     * @throws IOException - if it can't listen
+     */
+    public RomanServer(int port) throws IOException {
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        try {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            server.close();
+            selector.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the address it is listening on
+     */
+    public InetSocketAddress getAddress() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), server.socket().getLocalPort());
+    }
+
+    /**
+     * Start serving on a thread of its own.
+     */
+    public synchronized void start() {
+        if (thread != null)
+            throw new IllegalStateException("Already started");
+        thread = new Thread(this::serve, "roman-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void serve() {
+        try {
+            while (!closing) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid())
+                            continue;
+                        if (key.isAcceptable())
+                            accept();
+                        else
+                            serve(key);
+                    } catch (IOException e) {
+                        key.channel().close(); // just lose this connection
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Stopped serving: " + e.getMessage());
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Close every connection, then the selector and the server.
+     * Only done by the thread serving (if there is one), so never while
+     * it is in the middle of serving a connection.
+     */
+    private void closeAll() {
+        if (selector.isOpen()) {
+            // closing the selector would leave its channels open
+            for (SelectionKey key : selector.keys())
+                closeQuietly(key.channel());
+            closeQuietly(selector);
+        }
+        closeQuietly(server);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            System.err.println("Failed closing: " + e.getMessage());
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null)
+            return;
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    private void serve(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        if (key.isWritable() && !flush(channel, connection))
+            return; // still waiting to write the last answers
+        if (key.isReadable() && channel.read(connection.in) < 0) {
+            channel.close();
+            return;
+        }
+        ByteBuffer in = connection.in;
+        in.flip();
+        while (true) {
+            int answered = in.position();
+            connection.out.compact();
+            answer(in, connection.out);
+            connection.out.flip();
+            if (!flush(channel, connection)) {
+                // wait until the client reads some answers before doing any more
+                in.compact();
+                key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+            if (in.position() == answered)
+                break; // no complete lines left
+        }
+        in.compact();
+        if (!in.hasRemaining()) {
+            channel.close(); // a line too long to be a number
+            return;
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /**
+     * @return true if all the answers have been written
+     */
+    private static boolean flush(SocketChannel channel, Connection connection) throws IOException {
+        channel.write(connection.out);
+        return !connection.out.hasRemaining();
+    }
+
+    /**
+     * Answer each complete line in the input, while there is room in the output.
+     *
+     * @param in - lines read, from its position to its limit
+     * @param out - to put the answers
+     */
+    static void answer(@NotNull ByteBuffer in, @NotNull ByteBuffer out) {
+        int start = in.position();
+        int limit = in.limit();
+        while (out.remaining() >= MAX_ANSWER) {
+            int end = start;
+            while (end < limit && in.get(end) != '\n')
+                end++;
+            if (end == limit)
+                break; // only part of a line
+            answer(in, start, end, out);
+            start = end + 1;
+        }
+        in.position(start);
+    }
+
+    private static void answer(ByteBuffer in, int start, int end, ByteBuffer out) {
+        long state = PackedRomanNumeral.fold(in, start, end);
+        if (PackedRomanNumeral.isValid(state)) {
+            putValue(PackedRomanNumeral.value(state), out);
+        } else {
+            // only errors make garbage, to get the same message as everywhere else
+            byte[] line = new byte[end - start];
+            in.get(start, line);
+            try {
+                putValue(Roman.valueOf(new String(line, StandardCharsets.UTF_8)).intValue(), out);
+            } catch (NumberFormatException e) {
+                byte[] message = String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+                out.put(ERROR);
+                out.put(message, 0, Math.min(message.length, MAX_ANSWER - ERROR.length - 1));
+                out.put((byte) '\n');
+            }
+        }
+    }
+
+    private static void putValue(int value, ByteBuffer out) {
+        int divisor = 1;
+        while (divisor * 10 <= value)
+            divisor *= 10;
+        for (; divisor > 0; divisor /= 10)
+            out.put((byte) ('0' + (value / divisor) % 10));
+        out.put((byte) '\n');
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closing = true;
+        if (thread == null) {
+            closeAll();
+        } else {
+            if (selector.isOpen())
+                selector.wakeup(); // to close everything on its way out
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 1) {
+            System.err.println("Usage: RomanServer [port]");
+            System.exit(2);
+        }
+        try (RomanServer server = new RomanServer(args.length > 0? Integer.parseInt(args[0]): 0)) {
+            server.start();
+            System.out.println("Serving on " + server.getAddress() + ", press Ctrl-C to stop");
+            Thread.currentThread().join(); // until stopped
+        }
+    }
+}
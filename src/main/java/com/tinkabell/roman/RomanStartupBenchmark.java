@@ -0,0 +1,117 @@
+package com.tinkabell.roman;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+
+/**
+ * A startup benchmark: how long a cold Roman takes to initialise and hand
+ * out every value's numerals from the build time RomanTables, compared
+ * with a cold Roman working the same numerals out with its format().
+ *
+ * Each round loads Roman (and whatever it uses) afresh, in a class loader
+ * of its own for each side, as a short-lived run of main() would. Each
+ * side times initialising Roman and then producing all the numerals, so
+ * the two are like for like.
+ */
+public class RomanStartupBenchmark {
+
+    private RomanStartupBenchmark() {
+        // only static methods
+    }
+
+    /**
+     * A freshly initialised Roman class, how long that took,
+     * and how long producing all its numerals then took.
+     */
+    record Initialised(Class<?> roman, long nanos, long numeralsNanos, String[] numerals) {}
+
+    /**
+     * Initialise Roman with its tables in a class loader of its own,
+     * then ask it for every value's numerals.
+     *
+     * @return the class, its numerals and how long each step took
+     * @throws ReflectiveOperationException - if the class can't be loaded
+     */
+    static Initialised withTables() throws ReflectiveOperationException {
+        return initialise("lookUpAll");
+    }
+
+    /**
+     * Initialise Roman in a class loader of its own,
+     * then work out every value's numerals without the tables.
+     *
+     * @return the class, its numerals and how long each step took
+     * @throws ReflectiveOperationException - if the class can't be loaded
+     */
+    static Initialised withoutTables() throws ReflectiveOperationException {
+        return initialise("workOutAll");
+    }
+
+    private static Initialised initialise(String produce) throws ReflectiveOperationException {
+        URL classes = Roman.class.getProtectionDomain().getCodeSource().getLocation();
+        // not closed, as the class is handed back to be used
+        URLClassLoader loader = new URLClassLoader(new URL[]{classes}, ClassLoader.getPlatformClassLoader());
+        Class<?> loaded = Class.forName(Roman.class.getName(), false, loader);
+        // this class too, so the numerals come from that Roman directly
+        Method numerals = Class.forName(RomanStartupBenchmark.class.getName(), true, loader)
+                .getDeclaredMethod(produce);
+        numerals.setAccessible(true); // package private, but in another loader's package
+        long start = System.nanoTime();
+        Class.forName(loaded.getName(), true, loader);
+        long nanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        String[] produced = (String[]) numerals.invoke(null);
+        return new Initialised(loaded, nanos, System.nanoTime() - start, produced);
+    }
+
+    /**
+     * @return every value's numerals, as looked up by Roman.valueOf(), indexed by value
+     */
+    static String[] lookUpAll() {
+        String[] numerals = new String[Roman.MAX_VALUE + 1];
+        for (int value = Roman.MIN_VALUE; value <= Roman.MAX_VALUE; value++)
+            numerals[value] = Roman.valueOf(value).toString();
+        return numerals;
+    }
+
+    /**
+     * @return every value's numerals, as worked out by Roman.format(), indexed by value
+     */
+    static String[] workOutAll() {
+        String[] numerals = new String[Roman.MAX_VALUE + 1];
+        for (int value = Roman.MIN_VALUE; value <= Roman.MAX_VALUE; value++)
+            numerals[value] = Roman.format(value);
+        return numerals;
+    }
+
+    private static long median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    public static void main(String[] args) throws ReflectiveOperationException {
+        if (args.length > 1) {
+            System.err.println("Usage: RomanStartupBenchmark [rounds]");
+            System.exit(2);
+        }
+        int rounds = args.length > 0? Integer.parseInt(args[0]): 21;
+        long[] init = new long[rounds];
+        long[] tables = new long[rounds];
+        long[] computed = new long[rounds];
+        for (int round = 0; round < rounds; round++) {
+            Initialised with = withTables();
+            Initialised without = withoutTables();
+            init[round] = with.nanos();
+            tables[round] = with.nanos() + with.numeralsNanos();
+            computed[round] = without.nanos() + without.numeralsNanos();
+        }
+        System.out.printf("Cold Roman initialisation %d us (first %d us)%n",
+                median(init) / 1000, init[0] / 1000);
+        System.out.printf("Cold Roman and every numeral: with tables %d us (first %d us), "
+                        + "without tables %d us (first %d us)%n",
+                median(tables) / 1000, tables[0] / 1000, median(computed) / 1000, computed[0] / 1000);
+    }
+}
@@ -0,0 +1,211 @@
+package com.tinkabell.roman;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Check whether some characters are a well-formed roman number,
+ * without working out its value.
+ *
+ * This follows the same grammar as RomanNumber.nextNumeral(),
+ * but the whole of that state is packed into a single int,
+ * so checking never allocates and never throws, and stops at the
+ * first character that can not be part of a valid number.
+ *
+ * Two modes are supported:
+ *    lenient - what RomanNumber.parse() accepts: surrounding whitespace,
+ *              lowercase and "additive notation" of up to 9 ones
+ *              (and like its toUpperCase(), the dotless i 'ı' as 'I')
+ *    strict - only the canonical form of 1 to 3999: uppercase,
+ *             "subtractive notation" and no more than 3 repeated ones
+ */
+public final class RomanValidator {
+
+    /*
+    The state is packed into an int as:
+       bits 0-2  order + 1 of the digit being looked for (0 if past the units)
+       bits 3-4  what we are looking for (as RomanNumber.NextNumeral)
+       bits 5-8  value of the current digit so far
+       bit 9     a numeral has been seen
+       bit 10    whitespace after the numerals has been seen
+    and negative if invalid.
+     */
+    private static final int ORDER_MASK = 0x7;
+    private static final int LOOKING_SHIFT = 3;
+    private static final int LOOKING_MASK = 0x3;
+    private static final int DIGIT_SHIFT = 5;
+    private static final int DIGIT_MASK = 0xF;
+    private static final int STARTED = 1 << 9;
+    private static final int TRAILING = 1 << 10;
+
+    // what we are looking for
+    private static final int ONE = 0; // only looking for one's
+    private static final int ONE_FIVE = 1; // looking for one or five
+    private static final int ONE_FIVE_TEN = 2; // looking for one or five or ten
+
+    static final int INVALID = -1;
+    static final int START = (3 + 1) | (ONE_FIVE << LOOKING_SHIFT); // looking for thousands
+
+    // the valid characters used to get an index
+    private static final String numerals = "IVXLCDM";
+    // index of each ascii character in numerals, or -1 if not a numeral
+    private static final byte[] upperIndex = new byte[128];
+    private static final byte[] eitherIndex = new byte[128];
+
+    static {
+        for (int c = 0; c < 128; c++) {
+            upperIndex[c] = (byte) numerals.indexOf(c);
+            eitherIndex[c] = (byte) numerals.indexOf(Character.toUpperCase(c));
+        }
+    }
+
+    private RomanValidator() {
+        // only static methods
+    }
+
+    /**
+     * Find which numeral a character is, folding case as String.toUpperCase()
+     * does when lenient, which for non-ascii only makes a numeral of 'ı'.
+     *
+     * @param c - a character
+     * @param strict - only accept uppercase
+     * @return index of the numeral in "IVXLCDM", or -1 if not a numeral
+     */
+    static int numeralIndex(int c, boolean strict) {
+        if (c < 128)
+            return (strict? upperIndex: eitherIndex)[c];
+        if (strict)
+            return -1;
+        int upper = Character.toUpperCase(c);
+        return upper < 128? upperIndex[upper]: -1;
+    }
+
+    /**
+     * Move the state on by one character.
+     *
+     * @param state - the state so far (START for nothing yet)
+     * @param c - the next character
+     * @param strict - only accept canonical numerals
+     * @return the new state, or INVALID
+     */
+    static int next(int state, int c, boolean strict) {
+        if (state < 0)
+            return INVALID;
+        if (c <= ' ' && !strict) {
+            // whitespace is ignored at the start but must then continue to the end
+            return (state & STARTED) != 0? state | TRAILING: state;
+        }
+        if ((state & TRAILING) != 0)
+            return INVALID; // a numeral after trailing whitespace
+        int index = numeralIndex(c, strict);
+        if (index < 0)
+            return INVALID; // not a numeral
+        int order = (state & ORDER_MASK) - 1;
+        int lookingFor = (state >>> LOOKING_SHIFT) & LOOKING_MASK;
+        int digit = (state >>> DIGIT_SHIFT) & DIGIT_MASK;
+        while (true) {
+            if (order < 0)
+                return INVALID; // an excess numeral after the units
+            // index of the numerals at this order
+            int one = 2 * order;
+            int five = one + 1;
+            int ten = one + 2;
+            switch (lookingFor) {
+                case ONE -> {
+                    if (index > one)
+                        return INVALID; // out of sequence
+                    if (index == one) {
+                        digit++;
+                        if (digit >= 10 || (strict && digit % 5 > 3))
+                            return INVALID; // repeats too often
+                        return pack(order, ONE, digit);
+                    }
+                }
+                case ONE_FIVE -> {
+                    if (index > five)
+                        return INVALID; // out of sequence
+                    if (index == one)
+                        return pack(order, ONE_FIVE_TEN, 1);
+                    if (index == five)
+                        return pack(order, ONE, 5);
+                }
+                default -> {
+                    if (index > ten)
+                        return INVALID; // out of sequence
+                    if (index == one)
+                        return pack(order, ONE, 2);
+                    if (index == five || index == ten)
+                        return pack(order - 1, ONE_FIVE, 0); // a four or nine ends this digit
+                }
+            }
+            // a smaller numeral, so end this digit and keep looking
+            order--;
+            lookingFor = ONE_FIVE;
+            digit = 0;
+        }
+    }
+
+    private static int pack(int order, int lookingFor, int digit) {
+        return (order + 1) | (lookingFor << LOOKING_SHIFT) | (digit << DIGIT_SHIFT) | STARTED;
+    }
+
+    /**
+     * @param state - after the last character
+     * @return true if the characters so far are a complete valid number
+     */
+    static boolean isComplete(int state) {
+        return state >= 0 && (state & STARTED) != 0;
+    }
+
+    /**
+     * Check leniently, as RomanNumber.parse() would.
+     *
+     * @param s - characters to check
+     * @return true if a valid roman number
+     */
+    public static boolean isValid(@NotNull CharSequence s) {
+        return isValid(s, false);
+    }
+
+    /**
+     * Check the characters are a roman number.
+     *
+     * @param s - characters to check
+     * @param strict - only accept canonical numerals
+     * @return true if a valid roman number
+     */
+    public static boolean isValid(@NotNull CharSequence s, boolean strict) {
+        int state = START;
+        for (int i = 0, length = s.length(); i < length && state >= 0; i++)
+            state = next(state, s.charAt(i), strict);
+        return isComplete(state);
+    }
+
+    /**
+     * Check leniently, as RomanNumber.parse() would,
+     * that the ascii bytes are a roman number.
+     *
+     * @param bytes - containing the characters
+     * @param offset - of the first character
+     * @param length - number of characters
+     * @return true if a valid roman number
+     */
+    public static boolean isValid(byte @NotNull [] bytes, int offset, int length) {
+        return isValid(bytes, offset, length, false);
+    }
+
+    /**
+     * Check the ascii bytes are a roman number.
+     *
+     * @param bytes - containing the characters
+     * @param offset - of the first character
+     * @param length - number of characters
+     * @param strict - only accept canonical numerals
+     * @return true if a valid roman number
+     */
+    public static boolean isValid(byte @NotNull [] bytes, int offset, int length, boolean strict) {
+        int state = START;
+        for (int i = offset, end = offset + length; i < end && state >= 0; i++)
+            state = next(state, bytes[i] & 0xFF, strict);
+        return isComplete(state);
+    }
+}
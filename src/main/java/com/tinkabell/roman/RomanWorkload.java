@@ -0,0 +1,320 @@
+package com.tinkabell.roman;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * A deterministic generator of roman numeral records, one per line,
+ * for benchmarks and soak tests.
+ *
+ * The same seed and settings always give the same records.
+ * The settings control:
+ *    maxValue - largest value generated (defaults to 3999)
+ *    skew - 0 for uniform values, higher to favour smaller values
+ *    lowercase - fraction of records in lowercase
+ *    whitespace - fraction of records padded with spaces or tabs
+ *    additive - fraction of records using "additive notation" (IIII, VIIII)
+ *    invalid - fraction of records that are invalid, spread evenly over
+ *              the kinds of Invalid, each aimed at a different
+ *              NumberFormatException in RomanNumber
+ *
+ * Records are written straight into a byte buffer from precomputed
+ * numerals, so the generator is never the bottleneck of what it drives.
+ */
+public class RomanWorkload {
+
+    /**
+     * Ways a record can be invalid, and the error RomanNumber.parse() gives.
+     */
+    public enum Invalid {
+        INVALID_CHARACTER("Invalid character"), // not a numeral at all
+        EXCESS_NUMERAL("is out of sequence"), // more after the units are done (IVI)
+        ONE_OUT_OF_SEQUENCE("is out of sequence"), // bigger than a one after ones or a five (IIV)
+        REPEATS_TOO_OFTEN("repeats too often"), // ten or more ones (VIIIII)
+        ONE_FIVE_OUT_OF_SEQUENCE("is out of sequence"), // bigger than a five at the start of a digit (XLX)
+        ONE_FIVE_TEN_OUT_OF_SEQUENCE("is out of sequence"), // bigger than a ten after a one (IL)
+        EMPTY("out of range"); // nothing but whitespace
+
+        private final String message;
+
+        Invalid(String message) {
+            this.message = message;
+        }
+
+        /**
+         * @return part of the message RomanNumber.parse() gives for this kind
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    public static final int MAX_RECORD = 64; // longest record in bytes, without the new line
+
+    private static final byte[] notNumerals = "ABEFGHJKNOPQRSTUWYZ0123456789-.?".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[][] excess = bytes("IVI", "IXI", "IVX", "IXV", "IXX");
+    private static final byte[][] oneOutOfSequence = bytes("IIV", "IIX", "VV", "VX", "XXL", "LC", "CCM", "DD");
+    private static final byte[][] repeats = bytes("IIIIIIIIII", "VIIIII", "XXXXXXXXXX", "LXXXXX", "CCCCCCCCCC", "DCCCCC");
+    private static final byte[][] oneFiveOutOfSequence = bytes("XLX", "XCX", "XLL", "CDC", "CMC", "CDD", "MCMD");
+    private static final byte[][] oneFiveTenOutOfSequence = bytes("IL", "IC", "ID", "IM", "XD", "XM");
+    private static final byte[] blanks = {' ', '\t'};
+
+    // numerals of each digit at each order (units first), canonical and additive
+    private static final byte[][][] canonical = new byte[4][10][];
+    private static final byte[][][] additive = new byte[4][10][];
+
+    static {
+        for (int order = 0; order < 4; order++) {
+            for (int digit = 0; digit < 10; digit++) {
+                String numerals = new String(Roman.digitNumerals[order][digit]);
+                canonical[order][digit] = numerals.getBytes(StandardCharsets.US_ASCII);
+                if (order < 3 && (digit == 4 || digit == 9)) {
+                    // replace the subtraction with repeated ones
+                    String one = new String(Roman.digitNumerals[order][1]);
+                    String five = new String(Roman.digitNumerals[order][5]);
+                    numerals = (digit == 9? five: "") + one.repeat(4);
+                }
+                additive[order][digit] = numerals.getBytes(StandardCharsets.US_ASCII);
+            }
+        }
+    }
+
+    private static byte[][] bytes(String... strings) {
+        byte[][] bytes = new byte[strings.length][];
+        for (int i = 0; i < strings.length; i++)
+            bytes[i] = strings[i].getBytes(StandardCharsets.US_ASCII);
+        return bytes;
+    }
+
+    private final SplittableRandom random;
+    private int maxValue = 3999;
+    private double skew;
+    private double lowercase;
+    private double whitespace;
+    private double additiveForms;
+    private double invalid;
+
+    /**
+     * Create a generator of canonical uppercase numerals, uniformly from 1 to 3999.
+     *
+     * @param seed - for the random numbers
+     */
+    public RomanWorkload(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    private static double fraction(String name, double fraction) {
+        if (fraction < 0 || fraction > 1)
+            throw new IllegalArgumentException(name + " must be between 0 and 1: " + fraction);
+        return fraction;
+    }
+
+    public RomanWorkload maxValue(int maxValue) {
+        if (maxValue < Roman.MIN_VALUE || maxValue > Roman.MAX_VALUE)
+            throw new IllegalArgumentException("Max value " + maxValue + " is out of range");
+        this.maxValue = maxValue;
+        return this;
+    }
+
+    public RomanWorkload skew(double skew) {
+        if (skew < 0)
+            throw new IllegalArgumentException("Skew must not be negative: " + skew);
+        this.skew = skew;
+        return this;
+    }
+
+    public RomanWorkload lowercase(double fraction) {
+        lowercase = fraction("Lowercase", fraction);
+        return this;
+    }
+
+    public RomanWorkload whitespace(double fraction) {
+        whitespace = fraction("Whitespace", fraction);
+        return this;
+    }
+
+    public RomanWorkload additive(double fraction) {
+        additiveForms = fraction("Additive", fraction);
+        return this;
+    }
+
+    public RomanWorkload invalid(double fraction) {
+        invalid = fraction("Invalid", fraction);
+        return this;
+    }
+
+    private int nextValue() {
+        double u = random.nextDouble();
+        if (skew > 0)
+            u = Math.pow(u, 1 + skew); // bunch up towards zero
+        return 1 + (int) (u * maxValue);
+    }
+
+    private static int put(byte[] source, byte[] buffer, int position) {
+        System.arraycopy(source, 0, buffer, position, source.length);
+        return position + source.length;
+    }
+
+    private byte[] pick(byte[][] choices) {
+        return choices[random.nextInt(choices.length)];
+    }
+
+    private int putValue(int value, boolean isAdditive, byte[] buffer, int position) {
+        byte[][][] numerals = isAdditive? additive: canonical;
+        for (int order = 3, power = 1000; order >= 0; order--, power /= 10)
+            position = put(numerals[order][(value / power) % 10], buffer, position);
+        return position;
+    }
+
+    private int putBlanks(byte[] buffer, int position) {
+        for (int i = 1 + random.nextInt(2); i > 0; i--)
+            buffer[position++] = blanks[random.nextInt(blanks.length)];
+        return position;
+    }
+
+    /**
+     * Write an invalid record of the given kind.
+     * Most kinds have some thousands in front, so they are not all alike.
+     */
+    private int putInvalid(Invalid kind, byte[] buffer, int position) {
+        int thousands = random.nextInt(4);
+        switch (kind) {
+            case INVALID_CHARACTER -> {
+                int start = position;
+                position = putValue(nextValue(), false, buffer, position);
+                buffer[start + random.nextInt(position - start)] = notNumerals[random.nextInt(notNumerals.length)];
+            }
+            case EXCESS_NUMERAL -> {
+                position = put(canonical[3][thousands], buffer, position);
+                position = put(pick(excess), buffer, position);
+            }
+            case ONE_OUT_OF_SEQUENCE -> {
+                position = put(canonical[3][thousands], buffer, position);
+                position = put(pick(oneOutOfSequence), buffer, position);
+            }
+            case REPEATS_TOO_OFTEN -> position = put(pick(repeats), buffer, position);
+            case ONE_FIVE_OUT_OF_SEQUENCE -> position = put(pick(oneFiveOutOfSequence), buffer, position);
+            case ONE_FIVE_TEN_OUT_OF_SEQUENCE -> {
+                position = put(canonical[3][thousands], buffer, position);
+                position = put(pick(oneFiveTenOutOfSequence), buffer, position);
+            }
+            case EMPTY -> {
+                // just whitespace (if any)
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Write the next record into the buffer, without a new line.
+     *
+     * @param buffer - to write to, with at least MAX_RECORD bytes from the offset
+     * @param offset - where to write
+     * @return the length of the record
+     */
+    public int next(byte @NotNull [] buffer, int offset) {
+        return next(buffer, offset, null);
+    }
+
+    /**
+     * Write the next record, invalid in the given way if any.
+     */
+    private int next(byte[] buffer, int offset, @Nullable Invalid kind) {
+        int position = offset;
+        boolean padded = random.nextDouble() < whitespace;
+        if (padded)
+            position = putBlanks(buffer, position);
+        int start = position;
+        if (kind == null && invalid > 0 && random.nextDouble() < invalid) {
+            Invalid[] kinds = Invalid.values();
+            kind = kinds[random.nextInt(kinds.length)];
+        }
+        if (kind != null) {
+            position = putInvalid(kind, buffer, position);
+        } else {
+            position = putValue(nextValue(), additiveForms > 0 && random.nextDouble() < additiveForms, buffer, position);
+        }
+        if (lowercase > 0 && random.nextDouble() < lowercase) {
+            for (int i = start; i < position; i++)
+                if (buffer[i] >= 'A' && buffer[i] <= 'Z')
+                    buffer[i] |= 0x20;
+        }
+        if (padded)
+            position = putBlanks(buffer, position);
+        return position - offset;
+    }
+
+    /**
+     * @return the next record as a String
+     */
+    public String next() {
+        byte[] buffer = new byte[MAX_RECORD];
+        return new String(buffer, 0, next(buffer, 0), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Whatever the invalid fraction, the record is invalid, as this kind.
+     *
+     * @param kind - of invalid record
+     * @return the next record as a String
+     */
+    public String next(@NotNull Invalid kind) {
+        byte[] buffer = new byte[MAX_RECORD];
+        return new String(buffer, 0, next(buffer, 0, kind), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Write records, one per line.
+     *
+     * @param output - to write to
+     * @param records - how many
+     * @return bytes written
+     * @throws IOException - if writing fails
+     */
+    public long write(@NotNull OutputStream output, long records) throws IOException {
+        byte[] buffer = new byte[1 << 20];
+        int limit = buffer.length - MAX_RECORD - 1;
+        int position = 0;
+        long written = 0;
+        for (long record = 0; record < records; record++) {
+            position += next(buffer, position);
+            buffer[position++] = '\n';
+            if (position >= limit) {
+                output.write(buffer, 0, position);
+                written += position;
+                position = 0;
+            }
+        }
+        output.write(buffer, 0, position);
+        return written + position;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: RomanWorkload output|- records [seed [invalid [lowercase [whitespace [additive [skew]]]]]]");
+            System.exit(2);
+        }
+        RomanWorkload workload = new RomanWorkload(args.length > 2? Long.parseLong(args[2]): 0)
+                .invalid(args.length > 3? Double.parseDouble(args[3]): 0)
+                .lowercase(args.length > 4? Double.parseDouble(args[4]): 0)
+                .whitespace(args.length > 5? Double.parseDouble(args[5]): 0)
+                .additive(args.length > 6? Double.parseDouble(args[6]): 0)
+                .skew(args.length > 7? Double.parseDouble(args[7]): 0);
+        long start = System.nanoTime();
+        long bytes;
+        try (OutputStream output = args[0].equals("-")? OutputStream.nullOutputStream():
+                new BufferedOutputStream(Files.newOutputStream(Path.of(args[0])))) {
+            bytes = workload.write(output, Long.parseLong(args[1]));
+        }
+        long nanos = System.nanoTime() - start;
+        System.out.printf("Generated %d bytes at %.2f GB/minute%n", bytes, bytes * 60.0 / nanos);
+    }
+}
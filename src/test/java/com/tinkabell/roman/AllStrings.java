@@ -0,0 +1,41 @@
+package com.tinkabell.roman;
+
+import java.util.function.Consumer;
+
+/**
+ * Every string made from an alphabet, for exhaustive checks.
+ */
+final class AllStrings {
+
+    private AllStrings() {
+        // only static methods
+    }
+
+    /**
+     * Run the check on every string of minLength to maxLength characters
+     * from the alphabet, building each one from the previous with a counter.
+     *
+     * @param alphabet - characters to use
+     * @param minLength - shortest string
+     * @param maxLength - longest string
+     * @param check - to run on each string
+     */
+    static void forEach(String alphabet, int minLength, int maxLength, Consumer<String> check) {
+        for (int length = minLength; length <= maxLength; length++) {
+            int[] counter = new int[length];
+            char[] chars = new char[length];
+            boolean more = true;
+            while (more) {
+                for (int i = 0; i < length; i++)
+                    chars[i] = alphabet.charAt(counter[i]);
+                check.accept(new String(chars));
+                // next string
+                more = false;
+                for (int i = length - 1; i >= 0 && !more; i--) {
+                    counter[i] = (counter[i] + 1) % alphabet.length();
+                    more = counter[i] != 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.tinkabell.roman;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Consumer;
+
+class PackedRomanNumeralTest {
+
+    private static final String alphabet = "IVXLCDMz";
+
+    private static long fold(String s, int start, int end) {
+        long state = PackedRomanNumeral.UNITY;
+        for (int i = start; i < end; i++)
+            state = PackedRomanNumeral.combine(state, PackedRomanNumeral.of(s.charAt(i)));
+        return state;
+    }
+
+    /**
+     * Run the check on every string of up to 6 characters from the alphabet.
+     */
+    private static void forAllStrings(Consumer<String> check) {
+        forAllStrings(6, check);
+    }
+
+    /**
+     * Run the check on every string of up to maxLength characters from the alphabet.
+     */
+    private static void forAllStrings(int maxLength, Consumer<String> check) {
+        AllStrings.forEach(alphabet, 1, maxLength, check);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "I, 1",
+            " iI , 2",
+            "IiIi, 4",
+            "iX, 9",
+            "CDXLIV, 444",
+            "MCMLIX, 1959",
+            "MMMMMMMMMCMXCIX, 9999"
+    })
+    public void checkParse(String roman, int expected){
+        Assertions.assertEquals(expected, PackedRomanNumeral.parse(roman));
+    }
+
+    @Test
+    public void checkAgreesWithRomanNumeral(){
+        forAllStrings(s -> {
+            String expected;
+            try {
+                expected = Integer.toString(RomanNumeral.parse(s));
+            } catch (NumberFormatException e) {
+                expected = e.getMessage();
+            }
+            String actual;
+            try {
+                actual = Integer.toString(PackedRomanNumeral.parse(s));
+            } catch (NumberFormatException e) {
+                actual = e.getMessage();
+            }
+            if (s.charAt(0) != 'z') // RomanNumeral ignores a bad first character
+                Assertions.assertEquals(expected, actual, s);
+        });
+    }
+
+    @Test
+    public void checkAgreesWithRomanNumberOnValidity(){
+        forAllStrings(s -> {
+            boolean expected = RomanValidator.isValid(s);
+            Assertions.assertEquals(expected, PackedRomanNumeral.isValid(fold(s, 0, s.length())), s);
+        });
+    }
+
+    @Test
+    public void checkAssociative(){
+        forAllStrings(7, s -> {
+            long whole = fold(s, 0, s.length());
+            for (int split = 1; split < s.length(); split++) {
+                long combined = PackedRomanNumeral.combine(fold(s, 0, split), fold(s, split, s.length()));
+                Assertions.assertEquals(PackedRomanNumeral.isValid(whole), PackedRomanNumeral.isValid(combined), s + " at " + split);
+                if (PackedRomanNumeral.isValid(whole))
+                    Assertions.assertEquals(PackedRomanNumeral.value(whole), PackedRomanNumeral.value(combined), s + " at " + split);
+            }
+        });
+    }
+
+    @Test
+    public void checkInvalid(){
+        NumberFormatException thrown = Assertions.assertThrows(NumberFormatException.class,
+                () -> PackedRomanNumeral.parse("zIV"));
+        Assertions.assertEquals("Z is an invalid character for a Roman Numeral", thrown.getMessage());
+        thrown = Assertions.assertThrows(NumberFormatException.class,
+                () -> PackedRomanNumeral.parse("xxl"));
+        Assertions.assertEquals("L is not valid at this point in the roman numeral after XX", thrown.getMessage());
+        Assertions.assertThrows(NumberFormatException.class, () -> PackedRomanNumeral.parse(" "));
+        Assertions.assertThrows(NumberFormatException.class, () -> PackedRomanNumeral.parse("I".repeat(10)));
+    }
+
+    @Test
+    public void checkAllocatesNothing(){
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        String[] inputs = new String[Roman.MAX_VALUE + 1];
+        for (int value = Roman.MIN_VALUE; value <= Roman.MAX_VALUE; value++)
+            inputs[value] = Roman.valueOf(value).toString();
+        long total = 0;
+        for (int round = 0; round < 20; round++) // warm up
+            for (int value = Roman.MIN_VALUE; value <= Roman.MAX_VALUE; value++)
+                total += PackedRomanNumeral.parse(inputs[value]);
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int round = 0; round < 100; round++)
+            for (int value = Roman.MIN_VALUE; value <= Roman.MAX_VALUE; value++)
+                total += PackedRomanNumeral.parse(inputs[value]);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        Assertions.assertTrue(total > 0);
+        Assertions.assertTrue(allocated < 100_000, "Allocated " + allocated + " bytes for a million parses");
+    }
+
+}
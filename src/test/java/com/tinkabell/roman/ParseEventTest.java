@@ -0,0 +1,101 @@
+package com.tinkabell.roman;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+class ParseEventTest {
+
+    @TempDir
+    Path directory;
+
+    private List<RecordedEvent> record(Duration threshold, Runnable work) throws IOException {
+        Path file = directory.resolve("parse.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(ParseEvent.class).withThreshold(threshold);
+            recording.enable(ParseBatchEvent.class);
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static long count(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).count();
+    }
+
+    @Test
+    public void checkEveryParseOverZeroThreshold() throws IOException {
+        List<RecordedEvent> events = record(Duration.ZERO, () -> {
+            RomanNumber.parse("MCMLIX");
+            RomanNumeral.parse("XIV");
+            Assertions.assertThrows(NumberFormatException.class, () -> RomanNumber.parse("z"));
+        });
+        List<RecordedEvent> parses = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.tinkabell.roman.Parse"))
+                .toList();
+        Assertions.assertEquals(3, parses.size());
+        RecordedEvent first = parses.stream().filter(event -> event.getInt("value") == 1959).findFirst().orElseThrow();
+        Assertions.assertEquals("RomanNumber", first.getString("engine"));
+        Assertions.assertNull(first.getString("error"));
+        Assertions.assertTrue(parses.stream().anyMatch(event -> "RomanNumeral".equals(event.getString("engine"))));
+        Assertions.assertTrue(parses.stream().anyMatch(event -> event.getString("error") != null));
+    }
+
+    @Test
+    public void checkFastParsesNotRecorded() throws IOException {
+        List<RecordedEvent> events = record(Duration.ofSeconds(10), () -> RomanNumber.parse("MCMLIX"));
+        Assertions.assertEquals(0, count(events, "com.tinkabell.roman.Parse"));
+    }
+
+    @Test
+    public void checkBatch() throws IOException {
+        List<RecordedEvent> events = record(Duration.ofSeconds(10),
+                () -> RomanNumeral.main(new String[]{"I", "II", "z"}));
+        RecordedEvent batch = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.tinkabell.roman.ParseBatch"))
+                .findFirst().orElseThrow();
+        Assertions.assertEquals("RomanNumeral", batch.getString("engine"));
+        Assertions.assertEquals(3, batch.getLong("count"));
+        Assertions.assertEquals(1, batch.getLong("errors"));
+    }
+
+    @Test
+    public void checkRomanValueOf() throws IOException {
+        List<RecordedEvent> events = record(Duration.ZERO, () -> {
+            Roman.valueOf("MCMLIX");
+            Assertions.assertThrows(NumberFormatException.class, () -> Roman.valueOf("z"));
+        });
+        List<RecordedEvent> parses = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.tinkabell.roman.Parse"))
+                .toList();
+        Assertions.assertEquals(2, parses.size()); // one each, even when it fails
+        Assertions.assertTrue(parses.stream().allMatch(event -> "Roman".equals(event.getString("engine"))));
+        Assertions.assertTrue(parses.stream().anyMatch(event -> event.getInt("value") == 1959));
+        Assertions.assertTrue(parses.stream().anyMatch(event -> event.getString("error") != null));
+    }
+
+    @Test
+    public void checkConvertedBlock() throws IOException {
+        byte[] block = "I\n\nz\nMCMLIX\n".getBytes(StandardCharsets.US_ASCII);
+        List<RecordedEvent> events = record(Duration.ofSeconds(10),
+                () -> RomanFileConverter.convertBlock(block, block.length));
+        RecordedEvent batch = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.tinkabell.roman.ParseBatch"))
+                .findFirst().orElseThrow();
+        Assertions.assertEquals("Roman", batch.getString("engine"));
+        Assertions.assertEquals(3, batch.getLong("count"));
+        Assertions.assertEquals(1, batch.getLong("errors"));
+    }
+}
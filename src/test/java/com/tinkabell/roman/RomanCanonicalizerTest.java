@@ -0,0 +1,108 @@
+package com.tinkabell.roman;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+class RomanCanonicalizerTest {
+
+    private static String canonicalize(String numerals) {
+        char[] buffer = numerals.toCharArray();
+        int length = RomanCanonicalizer.canonicalize(buffer, 0, buffer.length);
+        return length == RomanCanonicalizer.INVALID? null: new String(buffer, 0, length);
+    }
+
+    @Test
+    public void checkLenientForms(){
+        Assertions.assertEquals("IV", canonicalize("IIII"));
+        Assertions.assertEquals("IX", canonicalize("VIIII"));
+        Assertions.assertEquals("IX", canonicalize("IIIIIIIII"));
+        Assertions.assertEquals("L", canonicalize("XXXXX"));
+        Assertions.assertEquals("MCMXCIV", canonicalize("MDCCCCLXXXXIIII"));
+        Assertions.assertEquals("MCMXCIV", canonicalize(" \tmcmxciv\n"));
+        Assertions.assertEquals("MMMMCD", canonicalize("MMMMCCCC"));
+        Assertions.assertEquals("XIV", canonicalize("XIV"));
+    }
+
+    @Test
+    public void checkInvalidUnchanged(){
+        for (String invalid : new String[]{"", "  ", "IIV", "IL", "VIIIII", "X I", "ABC", "MCMD"}) {
+            char[] buffer = invalid.toCharArray();
+            Assertions.assertEquals(RomanCanonicalizer.INVALID, RomanCanonicalizer.canonicalize(buffer, 0, buffer.length), invalid);
+            Assertions.assertEquals(invalid, new String(buffer));
+        }
+    }
+
+    @Test
+    public void checkInPlaceWithinBuffer(){
+        byte[] buffer = "[ viiii ]".getBytes(StandardCharsets.US_ASCII);
+        int length = RomanCanonicalizer.canonicalize(buffer, 1, 7);
+        Assertions.assertEquals(2, length);
+        Assertions.assertEquals("[IX", new String(buffer, 0, 3, StandardCharsets.US_ASCII));
+        Assertions.assertEquals(']', buffer[buffer.length - 1]); // nothing written past the record
+    }
+
+    /**
+     * Everything the generator writes, valid or not,
+     * should canonicalize the same as parsing and formatting does.
+     */
+    @Test
+    public void checkMatchesParseAndFormat(){
+        RomanWorkload workload = new RomanWorkload(39).maxValue(Roman.MAX_VALUE)
+                .lowercase(0.3).whitespace(0.3).additive(0.5).invalid(0.2);
+        for (int i = 0; i < 100_000; i++) {
+            String record = workload.next();
+            String expected;
+            try {
+                expected = Roman.valueOf(RomanNumber.parse(record)).toString();
+            } catch (NumberFormatException e) {
+                expected = null;
+            }
+            Assertions.assertEquals(expected, canonicalize(record), record);
+            byte[] bytes = record.getBytes(StandardCharsets.US_ASCII);
+            int length = RomanCanonicalizer.canonicalize(bytes, 0, bytes.length);
+            Assertions.assertEquals(expected, length == RomanCanonicalizer.INVALID? null:
+                    new String(bytes, 0, length, StandardCharsets.US_ASCII), record);
+        }
+    }
+
+    @Test
+    public void checkBulk(){
+        String[] records = {"iiii", " XXXXX ", "bad", "MDCCCCLXXXXIIII"};
+        String[] expected = {"IV", "L", "bad", "MCMXCIV"};
+        StringBuilder joined = new StringBuilder();
+        int[] offsets = new int[records.length];
+        int[] lengths = new int[records.length];
+        for (int i = 0; i < records.length; i++) {
+            offsets[i] = joined.length();
+            lengths[i] = records[i].length();
+            joined.append(records[i]).append('\n');
+        }
+
+        char[] chars = joined.toString().toCharArray();
+        int[] charLengths = lengths.clone();
+        Assertions.assertEquals(1, RomanCanonicalizer.canonicalize(chars, offsets, charLengths, records.length));
+        byte[] bytes = joined.toString().getBytes(StandardCharsets.US_ASCII);
+        int[] byteLengths = lengths.clone();
+        Assertions.assertEquals(1, RomanCanonicalizer.canonicalize(bytes, offsets, byteLengths, records.length));
+        char[][] arrays = new char[records.length][];
+        int[] arrayLengths = lengths.clone();
+        for (int i = 0; i < records.length; i++)
+            arrays[i] = records[i].toCharArray();
+        Assertions.assertEquals(1, RomanCanonicalizer.canonicalize(arrays, arrayLengths));
+
+        for (int i = 0; i < records.length; i++) {
+            if (expected[i].equals("bad")) {
+                Assertions.assertEquals(RomanCanonicalizer.INVALID, charLengths[i]);
+                Assertions.assertEquals(RomanCanonicalizer.INVALID, byteLengths[i]);
+                Assertions.assertEquals(RomanCanonicalizer.INVALID, arrayLengths[i]);
+                Assertions.assertEquals("bad", new String(chars, offsets[i], 3));
+            } else {
+                Assertions.assertEquals(expected[i], new String(chars, offsets[i], charLengths[i]));
+                Assertions.assertEquals(expected[i], new String(bytes, offsets[i], byteLengths[i], StandardCharsets.US_ASCII));
+                Assertions.assertEquals(expected[i], new String(arrays[i], 0, arrayLengths[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.tinkabell.roman;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+class RomanDirectoryWatcherTest {
+
+    @TempDir
+    Path directory;
+
+    private Path input;
+    private Path output;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        input = Files.createDirectory(directory.resolve("in"));
+        output = directory.resolve("out");
+    }
+
+    private static String lines(int from, int to) {
+        StringBuilder lines = new StringBuilder();
+        for (int value = from; value <= to; value++)
+            lines.append(Roman.valueOf(value)).append('\n');
+        return lines.toString();
+    }
+
+    private static String converted(int from, int to) {
+        StringBuilder lines = new StringBuilder();
+        for (int value = from; value <= to; value++)
+            lines.append(Roman.valueOf(value)).append(" is ").append(value).append('\n');
+        return lines.toString();
+    }
+
+    private static void append(Path file, String text) throws IOException {
+        Files.writeString(file, text, StandardCharsets.US_ASCII, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private String outputOf(String name) throws IOException {
+        Path file = output.resolve(name + ".out");
+        return Files.exists(file)? Files.readString(file, StandardCharsets.US_ASCII): "";
+    }
+
+    private void awaitOutput(String name, String expected) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (!outputOf(name).equals(expected) && System.nanoTime() < deadline)
+            Thread.sleep(20);
+        Assertions.assertEquals(expected, outputOf(name));
+    }
+
+    @Test
+    public void checkConvertsExistingAndNewFiles() throws IOException, InterruptedException {
+        append(input.resolve("existing"), lines(1, 100));
+        try (RomanDirectoryWatcher watcher = new RomanDirectoryWatcher(input, output, 2)) {
+            watcher.start();
+            awaitOutput("existing", converted(1, 100));
+            append(input.resolve("new"), lines(101, 200));
+            append(input.resolve("other"), "bad\n");
+            awaitOutput("new", converted(101, 200));
+            String error = Assertions.assertThrows(NumberFormatException.class, () -> Roman.valueOf("bad")).getMessage();
+            awaitOutput("other", "bad returned NumberFormatException: " + error + "\n");
+        }
+        try (Stream<Path> files = Files.list(output)) {
+            Assertions.assertEquals(1, files.filter(path -> path.toString().endsWith(".checkpoint"))
+                    .filter(path -> path.getFileName().toString().startsWith("other")).count());
+        }
+    }
+
+    @Test
+    public void checkConvertsAppendsButNotPartialLines() throws IOException, InterruptedException {
+        Path file = input.resolve("growing");
+        try (RomanDirectoryWatcher watcher = new RomanDirectoryWatcher(input, output, 2)) {
+            watcher.start();
+            append(file, lines(1, 10) + "MC");
+            awaitOutput("growing", converted(1, 10));
+            append(file, "MX\n" + lines(11, 20));
+            awaitOutput("growing", converted(1, 10) + "MCMX is 1910\n" + converted(11, 20));
+        }
+    }
+
+    @Test
+    public void checkIgnoresHiddenFiles() throws IOException, InterruptedException {
+        append(input.resolve(".hidden"), lines(1, 10));
+        append(input.resolve("visible"), lines(1, 10));
+        try (RomanDirectoryWatcher watcher = new RomanDirectoryWatcher(input, output, 1)) {
+            watcher.start();
+            awaitOutput("visible", converted(1, 10));
+        }
+        Assertions.assertFalse(Files.exists(output.resolve(".hidden.out")));
+    }
+
+    @Test
+    public void checkResumesWithoutRepeating() throws IOException, InterruptedException {
+        Path file = input.resolve("resumed");
+        append(file, lines(1, 50));
+        try (RomanDirectoryWatcher watcher = new RomanDirectoryWatcher(input, output, 2)) {
+            watcher.start();
+            awaitOutput("resumed", converted(1, 50));
+        }
+        append(file, lines(51, 100)); // while stopped
+        try (RomanDirectoryWatcher watcher = new RomanDirectoryWatcher(input, output, 2)) {
+            watcher.start();
+            awaitOutput("resumed", converted(1, 100));
+            long deadline = System.nanoTime() + 30_000_000_000L;
+            while (watcher.getLines() < 50 && System.nanoTime() < deadline)
+                Thread.sleep(20); // counted just after the output is written
+            Assertions.assertEquals(50, watcher.getLines());
+        }
+    }
+
+    @Test
+    public void checkRecoversFromCrash() throws IOException {
+        Path file = input.resolve("crashed");
+        append(file, lines(1, 50));
+        RomanDirectoryWatcher watcher = new RomanDirectoryWatcher(input, output, 1);
+        Files.createDirectories(output);
+        watcher.process(file);
+        // a crash after writing more output, but before the checkpoint
+        append(output.resolve("crashed.out"), "half written");
+        append(file, lines(51, 60));
+        watcher.process(file);
+        watcher.close();
+        Assertions.assertEquals(converted(1, 60), outputOf("crashed"));
+        Assertions.assertEquals(60, watcher.getLines());
+    }
+
+    @Test
+    public void checkStartsAgainWhenReplaced() throws IOException {
+        Path file = input.resolve("replaced");
+        append(file, lines(1, 50));
+        try (RomanDirectoryWatcher watcher = new RomanDirectoryWatcher(input, output, 1)) {
+            Files.createDirectories(output);
+            watcher.process(file);
+            Files.writeString(file, lines(7, 8), StandardCharsets.US_ASCII);
+            watcher.process(file);
+        }
+        Assertions.assertEquals(converted(1, 50) + converted(7, 8), outputOf("replaced"));
+    }
+
+    @Test
+    public void checkStartsAgainWhenReplacedByLonger() throws IOException {
+        Path file = input.resolve("replaced");
+        append(file, lines(1, 50));
+        try (RomanDirectoryWatcher watcher = new RomanDirectoryWatcher(input, output, 1)) {
+            Files.createDirectories(output);
+            watcher.process(file);
+            // a different file, made while the old one is still there
+            Path replacement = input.resolve(".replacement");
+            append(replacement, lines(101, 200));
+            Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING);
+            watcher.process(file);
+        }
+        Assertions.assertEquals(converted(1, 50) + converted(101, 200), outputOf("replaced"));
+    }
+
+    @Test
+    public void checkReplacedAfterCrash() throws IOException {
+        Path file = input.resolve("replaced");
+        append(file, lines(1, 50));
+        RomanDirectoryWatcher watcher = new RomanDirectoryWatcher(input, output, 1);
+        Files.createDirectories(output);
+        watcher.process(file);
+        // a crash after writing the replacement's output, but before its checkpoint
+        append(output.resolve("replaced.out"), "half written");
+        Files.writeString(file, lines(7, 8), StandardCharsets.US_ASCII);
+        watcher.process(file);
+        watcher.close();
+        Assertions.assertEquals(converted(1, 50) + converted(7, 8), outputOf("replaced"));
+    }
+
+    @Test
+    public void checkRewritesLostOutput() throws IOException {
+        Path file = input.resolve("lost");
+        append(file, lines(1, 50));
+        try (RomanDirectoryWatcher watcher = new RomanDirectoryWatcher(input, output, 1)) {
+            Files.createDirectories(output);
+            watcher.process(file);
+            Files.delete(output.resolve("lost.out"));
+            append(file, lines(51, 60));
+            watcher.process(file);
+        }
+        Assertions.assertEquals(converted(1, 60), outputOf("lost"));
+    }
+
+    @Test
+    public void checkRewritesReplacedOutput() throws IOException {
+        Path file = input.resolve("lost");
+        append(file, lines(1, 50));
+        try (RomanDirectoryWatcher watcher = new RomanDirectoryWatcher(input, output, 1)) {
+            Files.createDirectories(output);
+            watcher.process(file);
+            // a different file, no shorter than the one checkpointed
+            Path replacement = output.resolve(".replacement");
+            append(replacement, converted(1, 50).toLowerCase());
+            Files.move(replacement, output.resolve("lost.out"), StandardCopyOption.REPLACE_EXISTING);
+            watcher.process(file);
+        }
+        Assertions.assertEquals(converted(1, 50), outputOf("lost"));
+    }
+
+    @Test
+    public void checkCorruptCheckpointMovedAside() throws IOException {
+        Path file = input.resolve("corrupt");
+        append(file, lines(1, 50));
+        try (RomanDirectoryWatcher watcher = new RomanDirectoryWatcher(input, output, 1)) {
+            Files.createDirectories(output);
+            watcher.process(file);
+            Files.writeString(output.resolve("corrupt.checkpoint"), "12", StandardCharsets.US_ASCII); // partly written
+            watcher.process(file);
+        }
+        Assertions.assertEquals(converted(1, 50), outputOf("corrupt"));
+        try (Stream<Path> files = Files.list(output)) {
+            Path aside = files.filter(path -> path.getFileName().toString().startsWith("corrupt.out.corrupt-"))
+                    .findFirst().orElseThrow();
+            Assertions.assertEquals(converted(1, 50), Files.readString(aside, StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    public void checkForgetsFinishedFiles() throws IOException, InterruptedException {
+        try (RomanDirectoryWatcher watcher = new RomanDirectoryWatcher(input, output, 2)) {
+            watcher.start();
+            for (int i = 0; i < 10; i++)
+                append(input.resolve("file" + i), lines(1, 10));
+            for (int i = 0; i < 10; i++)
+                awaitOutput("file" + i, converted(1, 10));
+            long deadline = System.nanoTime() + 30_000_000_000L;
+            while (watcher.getConverting() > 0 && System.nanoTime() < deadline)
+                Thread.sleep(20); // the last may still be finishing
+            Assertions.assertEquals(0, watcher.getConverting());
+        }
+    }
+
+    @Test
+    public void checkLongLines() throws IOException {
+        Path file = input.resolve("long");
+        String padding = " ".repeat(3 * RomanFileConverter.BLOCK_SIZE);
+        append(file, padding + "XIV\nV\n");
+        try (RomanDirectoryWatcher watcher = new RomanDirectoryWatcher(input, output, 1)) {
+            Files.createDirectories(output);
+            watcher.process(file);
+        }
+        byte[] expected = (padding + "XIV\nV\n").getBytes(StandardCharsets.US_ASCII);
+        Assertions.assertEquals(new String(RomanFileConverter.convertBlock(expected, expected.length).output(),
+                StandardCharsets.US_ASCII), outputOf("long"));
+        Assertions.assertTrue(outputOf("long").endsWith("V is 5\n"));
+    }
+
+    @Test
+    public void checkNeedsAWorker(){
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RomanDirectoryWatcher(input, output, 0));
+    }
+
+    @Test
+    public void checkOutputNotInInput() throws IOException {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new RomanDirectoryWatcher(input, input, 1));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new RomanDirectoryWatcher(input, input.resolve("out"), 1));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new RomanDirectoryWatcher(input, input.resolve("sub/../out"), 1));
+        new RomanDirectoryWatcher(input, directory.resolve("in-out"), 1).close(); // only a similar name
+    }
+}
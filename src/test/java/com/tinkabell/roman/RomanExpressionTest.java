@@ -0,0 +1,75 @@
+package com.tinkabell.roman;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class RomanExpressionTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '=', value = {
+            "I + I = 2",
+            "MCMXCIV - XLII * II = 1910",
+            "(MCMXCIV - XLII) * II = 3904",
+            "X / III = 3",
+            "X - III - II = 5",
+            "C / V / II = 10",
+            " ( ( iv ) ) = 4",
+            "I - X = -9",
+            "MMMMMMMMMCMXCIX * MMMMMMMMMCMXCIX = 99980001"
+    })
+    public void checkEvaluate(String expression, int expected){
+        Assertions.assertEquals(expected, RomanExpression.evaluate(expression));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "I +", "+ I", "(I + I", "I + I)", "I I", "z + I", "IIIIIIIIII * I", "I + 2"})
+    public void checkInvalid(String expression){
+        Assertions.assertThrows(NumberFormatException.class,
+                () -> RomanExpression.evaluate(expression),
+                "NumberFormatException was expected for '" + expression + "'");
+    }
+
+    @Test
+    public void checkDivideByZero(){
+        Assertions.assertThrows(ArithmeticException.class,
+                () -> RomanExpression.evaluate("X / (I - I)"));
+    }
+
+    @Test
+    public void checkOverflow(){
+        String big = "MMMMMMMMMCMXCIX";
+        Assertions.assertEquals(9999 * 9999, RomanExpression.evaluate(big + " * " + big));
+        Assertions.assertThrows(ArithmeticException.class,
+                () -> RomanExpression.evaluate(big + " * " + big + " * " + big));
+        Assertions.assertThrows(ArithmeticException.class,
+                () -> RomanExpression.evaluate("I - " + big + " * " + big + " * " + big));
+        Assertions.assertThrows(ArithmeticException.class,
+                () -> RomanExpression.evaluate(big + " * " + big + " * " + big + " / " + big));
+    }
+
+    @Test
+    public void checkCached(){
+        RomanExpression expression = RomanExpression.compile("MMXXI - MCMLIX");
+        Assertions.assertSame(expression, RomanExpression.compile("MMXXI - MCMLIX"));
+        Assertions.assertEquals(62, expression.evaluate());
+        Assertions.assertEquals(62, expression.evaluate());
+    }
+
+    @Test
+    public void checkCacheIsBounded(){
+        RomanExpression first = RomanExpression.compile("I + II");
+        for (int value = 1; value <= RomanExpression.CACHE_SIZE; value++)
+            RomanExpression.compile(Roman.valueOf(value) + " + I");
+        Assertions.assertNotSame(first, RomanExpression.compile("I + II"));
+    }
+
+    @Test
+    public void checkIsExpression(){
+        Assertions.assertTrue(RomanExpression.isExpression("I+I"));
+        Assertions.assertFalse(RomanExpression.isExpression(" MCMLIX "));
+    }
+
+}
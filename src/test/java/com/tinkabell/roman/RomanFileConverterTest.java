@@ -0,0 +1,286 @@
+package com.tinkabell.roman;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+class RomanFileConverterTest {
+
+    @TempDir
+    Path directory;
+
+    private RomanFileConverter converter;
+    private String input;
+    private String expected;
+
+    @BeforeEach
+    public void setUp(){
+        converter = new RomanFileConverter(4);
+        // enough lines for lots of blocks, with an error every so often
+        StringBuilder in = new StringBuilder();
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            int value = 1 + i % Roman.MAX_VALUE;
+            if (i % 1000 == 999) {
+                in.append("bad\n");
+                out.append("bad returned NumberFormatException: ");
+                try {
+                    RomanNumber.parse("bad");
+                } catch (NumberFormatException e) {
+                    out.append(e.getMessage());
+                }
+                out.append('\n');
+            } else {
+                String numerals = Roman.valueOf(value).toString();
+                in.append(i % 2 == 0? numerals: numerals.toLowerCase()).append(i % 3 == 0? "\r\n": "\n");
+                out.append(i % 2 == 0? numerals: numerals.toLowerCase()).append(" is ").append(value).append('\n');
+            }
+        }
+        input = in.toString();
+        expected = out.toString();
+    }
+
+    @AfterEach
+    public void tearDown(){
+        converter.close();
+    }
+
+    private void checkConverts(Path file) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long errors = converter.convert(file, output);
+        Assertions.assertEquals(200, errors);
+        Assertions.assertEquals(expected, output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void checkPlain() throws IOException {
+        Path file = directory.resolve("numerals.txt");
+        Files.writeString(file, input);
+        checkConverts(file);
+    }
+
+    @Test
+    public void checkCached() throws IOException {
+        Path file = directory.resolve("numerals.txt");
+        Files.writeString(file, input);
+        try (RomanResultCache cache = RomanResultCache.open(directory.resolve("roman.cache"), 1 << 16)) {
+            converter.close();
+            converter = new RomanFileConverter(4, cache);
+            checkConverts(file);
+            long puts = cache.getPuts();
+            Assertions.assertTrue(puts > 0);
+            checkConverts(file); // again, from the cache
+            Assertions.assertEquals(puts, cache.getPuts());
+        }
+    }
+
+    @Test
+    public void checkGzip() throws IOException {
+        Path file = directory.resolve("numerals.txt.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(input.getBytes(StandardCharsets.UTF_8));
+        }
+        checkConverts(file);
+    }
+
+    /**
+     * Write the input as gzip members of the given size.
+     */
+    private void writeMembers(Path file, int memberSize) throws IOException {
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int start = 0; start < bytes.length; start += memberSize) {
+                GZIPOutputStream member = new GZIPOutputStream(out) {
+                    @Override
+                    public void close() throws IOException {
+                        finish(); // but leave the file open
+                    }
+                };
+                member.write(bytes, start, Math.min(memberSize, bytes.length - start));
+                member.close();
+            }
+        }
+    }
+
+    @Test
+    public void checkMultiMemberGzip() throws IOException {
+        Path file = directory.resolve("numerals.txt.gz");
+        writeMembers(file, 100_003); // odd sized members, so lines are split across them
+        checkConverts(file);
+    }
+
+    @Test
+    public void checkTrailingPaddingIgnored() throws IOException {
+        Path file = directory.resolve("numerals.txt.gz");
+        writeMembers(file, 100_003);
+        Files.write(file, new byte[16], StandardOpenOption.APPEND);
+        checkConverts(file);
+        Files.write(file, "not gzip at all".getBytes(StandardCharsets.US_ASCII), StandardOpenOption.APPEND);
+        checkConverts(file);
+    }
+
+    @Test
+    public void checkOnlySearchesMultiMember() throws IOException {
+        Path file = directory.resolve("numerals.txt.gz");
+        writeMembers(file, Integer.MAX_VALUE); // just one
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            try (ParallelGzipInputStream in = new ParallelGzipInputStream(FileChannel.open(file), executor, 4)) {
+                Assertions.assertEquals(input, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                Assertions.assertEquals(0, in.getScanned());
+            }
+            writeMembers(file, 100_003);
+            try (ParallelGzipInputStream in = new ParallelGzipInputStream(FileChannel.open(file), executor, 4)) {
+                Assertions.assertEquals(input, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                Assertions.assertTrue(in.getScanned() > 0);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Members much bigger than what is held in memory at once,
+     * read slowly, so the candidates have to wait.
+     */
+    @Test
+    public void checkLargeMembersReadSlowly() throws IOException {
+        Path file = directory.resolve("numerals.txt.gz");
+        writeMembers(file, 1_000_000);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (ParallelGzipInputStream in = new ParallelGzipInputStream(FileChannel.open(file), executor, 4)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1000];
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                out.write(buffer, 0, n);
+                Thread.yield();
+            }
+            Assertions.assertEquals(input, out.toString(StandardCharsets.UTF_8));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Members ahead of the one being read should carry on decompressing
+     * into the shared budget, beyond the few chunks each may always have.
+     */
+    @Test
+    public void checkMembersAheadKeepDecompressing() throws IOException, InterruptedException {
+        Path file = directory.resolve("numerals.txt.gz");
+        writeMembers(file, 1_000_000);
+        int length = input.getBytes(StandardCharsets.UTF_8).length;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (ParallelGzipInputStream in = new ParallelGzipInputStream(FileChannel.open(file), executor, 8)) {
+            Assertions.assertTrue(length < in.getBudget());
+            // into the second member, so the rest are looked for, and then stop reading
+            byte[] first = in.readNBytes(1_000_001);
+            int ahead = length - first.length - RomanFileConverter.BLOCK_SIZE; // all but the chunk being read
+            for (int wait = 0; wait < 1000 && in.getBuffered() < ahead; wait++)
+                Thread.sleep(10);
+            Assertions.assertTrue(in.getBuffered() >= ahead,
+                    "Only " + in.getBuffered() + " of " + ahead + " decompressed");
+            Assertions.assertEquals(input, new String(first, StandardCharsets.UTF_8) +
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            Assertions.assertEquals(0, in.getBuffered());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * A gzip member of the data, with the given header flags and fields.
+     */
+    private static byte[] member(byte[] data, int flags, byte[] fields) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        byte[] gzip = bytes.toByteArray();
+        gzip[3] = (byte) flags;
+        ByteArrayOutputStream member = new ByteArrayOutputStream();
+        member.write(gzip, 0, 10);
+        member.write(fields);
+        member.write(gzip, 10, gzip.length - 10);
+        return member.toByteArray();
+    }
+
+    @Test
+    public void checkLongHeaders() throws IOException {
+        byte[] data = input.substring(0, 100_000).getBytes(StandardCharsets.UTF_8);
+        byte[] extra = new byte[2 + 0xFFFF];
+        extra[0] = (byte) 0xFF;
+        extra[1] = (byte) 0xFF;
+        byte[] name = new byte[100_001]; // ends with its zero
+        Arrays.fill(name, 0, name.length - 1, (byte) 'a');
+        Path file = directory.resolve("numerals.txt.gz");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(member(data, 0, new byte[0]));
+            out.write(member(data, 0x04, extra)); // FEXTRA
+            out.write(member(data, 0x18, concat(name, name))); // FNAME and FCOMMENT
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (ParallelGzipInputStream in = new ParallelGzipInputStream(FileChannel.open(file), executor, 4)) {
+            Assertions.assertArrayEquals(concat(data, concat(data, data)), in.readAllBytes());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] both = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        return both;
+    }
+
+    @Test
+    public void checkBadHeaderAfterMemberFails() throws IOException {
+        Path file = directory.resolve("numerals.txt.gz");
+        writeMembers(file, 100_003);
+        // looks like a member with a name, but the name runs off the end
+        byte[] header = {0x1f, (byte) 0x8b, 8, 0x08, 0, 0, 0, 0, 0, (byte) 0xFF, 'a', 'b'};
+        Files.write(file, header, StandardOpenOption.APPEND);
+        Assertions.assertThrows(IOException.class,
+                () -> converter.convert(file, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void checkEmptyAndNoFinalNewLine() throws IOException {
+        Path file = directory.resolve("short.txt");
+        Files.writeString(file, "");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Assertions.assertEquals(0, converter.convert(file, output));
+        Assertions.assertEquals("", output.toString(StandardCharsets.UTF_8));
+        Files.writeString(file, "I\n\nMCMLIX");
+        Assertions.assertEquals(0, converter.convert(file, output));
+        Assertions.assertEquals("I is 1\nMCMLIX is 1959\n", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void checkCorruptGzip() throws IOException {
+        Path file = directory.resolve("corrupt.gz");
+        byte[] bytes = new byte[100];
+        bytes[0] = 0x1f;
+        bytes[1] = (byte) 0x8b;
+        bytes[2] = 8;
+        Files.write(file, bytes);
+        Assertions.assertThrows(IOException.class,
+                () -> converter.convert(file, new ByteArrayOutputStream()));
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.tinkabell.roman;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+class RomanInputValidatorTest {
+
+    @Test
+    public void checkTyping(){
+        RomanInputValidator input = new RomanInputValidator();
+        Assertions.assertFalse(input.isValid());
+        Assertions.assertTrue(input.canBecomeValid());
+        Assertions.assertEquals("IVXLCDM", input.getNextNumerals());
+        Assertions.assertTrue(input.append('M'));
+        Assertions.assertEquals(1000, input.getValue());
+        Assertions.assertTrue(input.append('C'));
+        Assertions.assertEquals(1100, input.getValue());
+        Assertions.assertEquals("IVXLCDM", input.getNextNumerals());
+        Assertions.assertTrue(input.append('m'));
+        Assertions.assertEquals(1900, input.getValue());
+        Assertions.assertEquals("IVXL", input.getNextNumerals());
+        Assertions.assertTrue(input.append("XCIV"));
+        Assertions.assertEquals(1994, input.getValue());
+        Assertions.assertEquals("", input.getNextNumerals());
+        Assertions.assertTrue(input.isValid());
+        Assertions.assertEquals(7, input.length());
+    }
+
+    @Test
+    public void checkBackspace(){
+        RomanInputValidator input = new RomanInputValidator();
+        Assertions.assertFalse(input.backspace());
+        input.append("XIV");
+        Assertions.assertFalse(input.append('X'));
+        Assertions.assertFalse(input.append('I')); // still invalid
+        Assertions.assertEquals(0, input.getValue());
+        Assertions.assertEquals("", input.getNextNumerals());
+        Assertions.assertTrue(input.backspace());
+        Assertions.assertFalse(input.canBecomeValid());
+        Assertions.assertTrue(input.backspace());
+        Assertions.assertTrue(input.canBecomeValid());
+        Assertions.assertEquals(14, input.getValue());
+        Assertions.assertTrue(input.backspace());
+        Assertions.assertEquals(11, input.getValue());
+        Assertions.assertTrue(input.append('X'));
+        Assertions.assertEquals(19, input.getValue());
+        input.clear();
+        Assertions.assertEquals(0, input.length());
+        Assertions.assertFalse(input.isValid());
+    }
+
+    @Test
+    public void checkWhitespace(){
+        RomanInputValidator input = new RomanInputValidator();
+        Assertions.assertTrue(input.append("  vi"));
+        Assertions.assertEquals(6, input.getValue());
+        Assertions.assertTrue(input.append(' '));
+        Assertions.assertTrue(input.isValid());
+        Assertions.assertEquals(6, input.getValue());
+        Assertions.assertEquals("", input.getNextNumerals());
+        Assertions.assertFalse(input.append('I'));
+        input.backspace();
+        input.backspace();
+        Assertions.assertEquals("I", input.getNextNumerals());
+    }
+
+    @Test
+    public void checkStrict(){
+        RomanInputValidator input = new RomanInputValidator(true);
+        Assertions.assertTrue(input.append("III"));
+        Assertions.assertEquals("", input.getNextNumerals());
+        Assertions.assertFalse(input.append('I'));
+        input.clear();
+        Assertions.assertFalse(input.append('i'));
+        input.clear();
+        Assertions.assertFalse(input.append(' '));
+        RomanInputValidator lenient = new RomanInputValidator();
+        Assertions.assertTrue(lenient.append("IIII"));
+        Assertions.assertEquals(4, lenient.getValue());
+    }
+
+    @Test
+    public void checkAllValues(){
+        RomanInputValidator input = new RomanInputValidator(true);
+        for (int value = 1; value < 4000; value++) {
+            input.clear();
+            Assertions.assertTrue(input.append(Roman.valueOf(value).toString()));
+            Assertions.assertEquals(value, input.getValue());
+        }
+    }
+
+    /**
+     * Random typing and deleting should always agree with checking
+     * (and parsing) the whole of what has been typed.
+     */
+    @Test
+    public void checkMatchesWholeParse(){
+        String keys = "IVXLCDMivx\u0131 ?"; // with a dotless i
+        SplittableRandom random = new SplittableRandom(38);
+        for (boolean strict : new boolean[]{false, true}) {
+            RomanInputValidator input = new RomanInputValidator(strict);
+            StringBuilder typed = new StringBuilder();
+            for (int i = 0; i < 100_000; i++) {
+                if (typed.length() > 0 && random.nextInt(5) < 2) {
+                    input.backspace();
+                    typed.setLength(typed.length() - 1);
+                } else {
+                    char c = keys.charAt(random.nextInt(keys.length()));
+                    input.append(c);
+                    typed.append(c);
+                }
+                boolean valid = RomanValidator.isValid(typed, strict);
+                Assertions.assertEquals(valid, input.isValid(), typed::toString);
+                Assertions.assertEquals(valid? RomanNumber.parse(typed.toString()): 0, input.getValue(), typed::toString);
+                // any numeral that is allowed completes a valid number
+                for (char next : "IVXLCDM".toCharArray())
+                    Assertions.assertEquals(RomanValidator.isValid(typed.toString() + next, strict),
+                            input.getNextNumerals().indexOf(next) >= 0, typed::toString);
+            }
+        }
+    }
+
+    /**
+     * Backspacing should give back exactly what there was before each character.
+     */
+    @Test
+    public void checkBackspaceRestores(){
+        RomanInputValidator input = new RomanInputValidator();
+        String typing = "MMMDCCCLXXXVIII";
+        int[] values = new int[typing.length() + 1];
+        int[] bits = new int[typing.length() + 1];
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < typing.length(); i++) {
+                values[i] = input.getValue();
+                bits[i] = input.nextNumeralBits();
+                Assertions.assertTrue(input.append(typing.charAt(i)));
+            }
+            Assertions.assertEquals(3888, input.getValue());
+            for (int i = typing.length() - 1; i >= 0; i--) {
+                Assertions.assertTrue(input.backspace());
+                Assertions.assertEquals(values[i], input.getValue(), typing.substring(0, i));
+                Assertions.assertEquals(bits[i], input.nextNumeralBits(), typing.substring(0, i));
+            }
+            Assertions.assertEquals(0, input.length());
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.tinkabell.roman;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+class RomanProcessorTest {
+
+    /**
+     * Subscriber that requests one at a time,
+     * optionally pausing to be slower than the producer.
+     */
+    private static class SlowSubscriber implements Flow.Subscriber<RomanProcessor.Conversion> {
+        final List<RomanProcessor.Conversion> received = new ArrayList<>();
+        final CountDownLatch finished = new CountDownLatch(1);
+        final boolean keep;
+        int count;
+        int errors;
+        Throwable failure;
+        Flow.Subscription subscription;
+
+        SlowSubscriber(boolean keep) {
+            this.keep = keep;
+        }
+
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        public void onNext(RomanProcessor.Conversion item) {
+            count++;
+            if (!item.isValid())
+                errors++;
+            if (keep)
+                received.add(item);
+            if (count % 64 == 0)
+                LockSupport.parkNanos(20_000); // dawdle
+            subscription.request(1);
+        }
+
+        public void onError(Throwable throwable) {
+            failure = throwable;
+            finished.countDown();
+        }
+
+        public void onComplete() {
+            finished.countDown();
+        }
+    }
+
+    @Test
+    public void checkConversions() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            RomanProcessor processor = new RomanProcessor(executor, 4);
+            SlowSubscriber subscriber = new SlowSubscriber(true);
+            try (SubmissionPublisher<String> publisher = new SubmissionPublisher<>(executor, 16)) {
+                publisher.subscribe(processor);
+                processor.subscribe(subscriber);
+                for (String s : new String[]{"I", " ii ", "z", "MCMLIX", "IIIIIIIIII"})
+                    publisher.submit(s);
+            } // closing completes the stream
+            Assertions.assertTrue(subscriber.finished.await(10, TimeUnit.SECONDS));
+            Assertions.assertNull(subscriber.failure);
+            Assertions.assertEquals(5, subscriber.received.size());
+            Assertions.assertEquals(1, subscriber.received.get(0).roman().intValue());
+            Assertions.assertEquals(2, subscriber.received.get(1).roman().intValue());
+            Assertions.assertFalse(subscriber.received.get(2).isValid());
+            Assertions.assertNotNull(subscriber.received.get(2).error());
+            Assertions.assertEquals(1959, subscriber.received.get(3).roman().intValue());
+            Assertions.assertFalse(subscriber.received.get(4).isValid());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void checkBoundedWhenConsumerIsSlow() throws InterruptedException {
+        int total = 200_000;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            RomanProcessor processor = new RomanProcessor(executor, 32);
+            SlowSubscriber subscriber = new SlowSubscriber(false);
+            try (SubmissionPublisher<String> publisher = new SubmissionPublisher<>(executor, 64)) {
+                publisher.subscribe(processor);
+                processor.subscribe(subscriber);
+                // produce as fast as we can, submit() blocks when nobody wants more
+                for (int i = 0; i < total; i++)
+                    publisher.submit(i % 100 == 0? "bad": Roman.valueOf(1 + i % Roman.MAX_VALUE).toString());
+            } // closing completes the stream
+            Assertions.assertTrue(subscriber.finished.await(60, TimeUnit.SECONDS));
+            Assertions.assertNull(subscriber.failure);
+            Assertions.assertEquals(total, subscriber.count);
+            Assertions.assertEquals(total / 100, subscriber.errors);
+            Assertions.assertTrue(processor.getHighWater() <= processor.getCapacity(),
+                    "Buffered " + processor.getHighWater() + " but capacity is " + processor.getCapacity());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void checkOnlyOneSubscriber() throws InterruptedException {
+        RomanProcessor processor = new RomanProcessor(Runnable::run, 4);
+        processor.subscribe(new SlowSubscriber(false));
+        SlowSubscriber second = new SlowSubscriber(false);
+        processor.subscribe(second);
+        Assertions.assertTrue(second.finished.await(1, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(IllegalStateException.class, second.failure);
+    }
+
+    @Test
+    public void checkInvalidRequest(){
+        RomanProcessor processor = new RomanProcessor(Runnable::run, 4);
+        boolean[] upstreamCancelled = new boolean[1];
+        processor.onSubscribe(new Flow.Subscription() {
+            public void request(long n) {}
+            public void cancel() {
+                upstreamCancelled[0] = true;
+            }
+        });
+        processor.onNext("I");
+        processor.onNext("II"); // buffered, as nothing requested yet
+        Throwable[] failure = new Throwable[1];
+        processor.subscribe(new Flow.Subscriber<>() {
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(0);
+            }
+            public void onNext(RomanProcessor.Conversion item) {
+                Assertions.fail("Nothing was requested: " + item);
+            }
+            public void onError(Throwable throwable) {
+                failure[0] = throwable;
+            }
+            public void onComplete() {
+                Assertions.fail("Should have failed");
+            }
+        });
+        Assertions.assertInstanceOf(IllegalArgumentException.class, failure[0]);
+        Assertions.assertTrue(upstreamCancelled[0]);
+    }
+
+    @Test
+    public void checkNothingBeforeOnSubscribeReturns(){
+        RomanProcessor processor = new RomanProcessor(Runnable::run, 4);
+        processor.onSubscribe(new Flow.Subscription() {
+            public void request(long n) {}
+            public void cancel() {}
+        });
+        boolean[] inOnSubscribe = new boolean[1];
+        boolean[] completed = new boolean[1];
+        processor.subscribe(new Flow.Subscriber<>() {
+            public void onSubscribe(Flow.Subscription subscription) {
+                inOnSubscribe[0] = true;
+                processor.onComplete(); // as if upstream completed meanwhile
+                inOnSubscribe[0] = false;
+            }
+            public void onNext(RomanProcessor.Conversion item) {
+                Assertions.fail("Nothing was sent: " + item);
+            }
+            public void onError(Throwable throwable) {
+                Assertions.fail("Should have completed: " + throwable);
+            }
+            public void onComplete() {
+                Assertions.assertFalse(inOnSubscribe[0], "Completed inside onSubscribe");
+                completed[0] = true;
+            }
+        });
+        Assertions.assertTrue(completed[0]);
+    }
+
+    @Test
+    public void checkThrowingSubscriber(){
+        RomanProcessor processor = new RomanProcessor(Runnable::run, 4);
+        boolean[] upstreamCancelled = new boolean[1];
+        processor.onSubscribe(new Flow.Subscription() {
+            public void request(long n) {}
+            public void cancel() {
+                upstreamCancelled[0] = true;
+            }
+        });
+        IllegalStateException thrown = new IllegalStateException("broken subscriber");
+        Throwable[] failure = new Throwable[1];
+        int[] received = new int[1];
+        processor.subscribe(new Flow.Subscriber<>() {
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+            public void onNext(RomanProcessor.Conversion item) {
+                received[0]++;
+                throw thrown;
+            }
+            public void onError(Throwable throwable) {
+                failure[0] = throwable;
+            }
+            public void onComplete() {
+                Assertions.fail("Should have failed");
+            }
+        });
+        processor.onNext("I"); // throws in onNext, but not out of the drain loop
+        processor.onNext("II"); // so the loop runs again, and drops it
+        processor.onComplete();
+        Assertions.assertSame(thrown, failure[0]);
+        Assertions.assertTrue(upstreamCancelled[0]);
+        Assertions.assertEquals(1, received[0]);
+    }
+
+    @Test
+    public void checkNullSubscriber(){
+        RomanProcessor processor = new RomanProcessor(Runnable::run, 4);
+        Assertions.assertThrows(NullPointerException.class, () -> processor.subscribe(null));
+    }
+}
@@ -0,0 +1,65 @@
+package com.tinkabell.roman;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class RomanRangeTest {
+
+    @Test
+    public void checkFirstTen(){
+        List<String> numerals = new ArrayList<>();
+        new RomanRange(1, 10).forEach(numerals::add);
+        Assertions.assertEquals(
+                List.of("I", "II", "III", "IV", "V", "VI", "VII", "VIII", "IX", "X"),
+                numerals);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "1, 9999, 1",
+            "1, 9999, 7",
+            "3999, 4001, 1",
+            "5, 9995, 1234",
+            "100, 100, 3"
+    })
+    public void checkMatchesFormat(int from, int to, int step){
+        RomanRange range = new RomanRange(from, to, step);
+        RomanRange.Cursor cursor = range.cursor();
+        int expected = from;
+        while (cursor.advance()) {
+            Assertions.assertEquals(expected, cursor.getValue());
+            Assertions.assertEquals(Roman.valueOf(expected).toString(), cursor.toString());
+            expected += step;
+        }
+        Assertions.assertEquals(range.size(), (expected - from) / step);
+    }
+
+    @Test
+    public void checkParallel(){
+        List<String> expected = IntStream.rangeClosed(1, 9999)
+                .filter(value -> value % 3 == 1)
+                .mapToObj(value -> Roman.valueOf(value).toString())
+                .collect(Collectors.toList());
+        Assertions.assertEquals(expected,
+                new RomanRange(1, 9999, 3).parallelStream().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void checkEmptyAndInvalid(){
+        Assertions.assertEquals(0, new RomanRange(10, 1).stream().count());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new RomanRange(0, 10),
+                "IllegalArgumentException was expected as there is no zero!");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new RomanRange(1, 10, 0),
+                "IllegalArgumentException was expected as step must move on!");
+    }
+
+}
@@ -0,0 +1,208 @@
+package com.tinkabell.roman;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+class RomanResultCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private RomanResultCache open(int slots) throws IOException {
+        return RomanResultCache.open(directory.resolve("roman.cache"), slots);
+    }
+
+    @Test
+    public void checkPutAndGet() throws IOException {
+        try (RomanResultCache cache = open(64)) {
+            Assertions.assertTrue(cache.isWriter());
+            Assertions.assertEquals(RomanResultCache.MISS, cache.get("XIV"));
+            Assertions.assertTrue(cache.put("XIV", 14));
+            Assertions.assertEquals(14, cache.get("XIV"));
+            Assertions.assertEquals(RomanResultCache.MISS, cache.get("XV"));
+            Assertions.assertEquals(1, cache.getPuts());
+        }
+    }
+
+    @Test
+    public void checkNormalizes() throws IOException {
+        try (RomanResultCache cache = open(64)) {
+            cache.put(" \tiiii ", 4);
+            Assertions.assertEquals(4, cache.get("IIII"));
+            Assertions.assertEquals(4, cache.get("iIiI\n"));
+            Assertions.assertEquals(RomanResultCache.MISS, cache.get("III"));
+        }
+    }
+
+    @Test
+    public void checkParse() throws IOException {
+        try (RomanResultCache cache = open(64)) {
+            Assertions.assertEquals(1994, cache.parse("mcmxciv"));
+            Assertions.assertEquals(1994, cache.get("MCMXCIV"));
+            String message = Assertions.assertThrows(NumberFormatException.class, () -> Roman.valueOf("IIV")).getMessage();
+            Assertions.assertEquals(message,
+                    Assertions.assertThrows(NumberFormatException.class, () -> cache.parse("IIV")).getMessage());
+            Assertions.assertEquals(RomanResultCache.INVALID, cache.get("IIV"));
+            Assertions.assertEquals(message,
+                    Assertions.assertThrows(NumberFormatException.class, () -> cache.parse("iiv")).getMessage());
+            Assertions.assertEquals(2, cache.getPuts());
+        }
+    }
+
+    @Test
+    public void checkNotCached() throws IOException {
+        try (RomanResultCache cache = open(64)) {
+            String tooLong = "M".repeat(RomanResultCache.MAX_KEY + 1);
+            Assertions.assertFalse(cache.put(tooLong, RomanResultCache.INVALID));
+            Assertions.assertFalse(cache.put("X\u00cf", RomanResultCache.INVALID));
+            Assertions.assertTrue(cache.put("M".repeat(RomanResultCache.MAX_KEY), RomanResultCache.INVALID));
+            Assertions.assertEquals(RomanResultCache.MISS, cache.get(tooLong));
+            Assertions.assertEquals(RomanResultCache.INVALID, cache.get("M".repeat(RomanResultCache.MAX_KEY)));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> cache.put("X", 0));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> cache.put("X", Roman.MAX_VALUE + 1));
+        }
+    }
+
+    @Test
+    public void checkPersists() throws IOException {
+        try (RomanResultCache cache = open(64)) {
+            cache.put("XLII", 42);
+        }
+        try (RomanResultCache cache = open(1024)) {
+            Assertions.assertEquals(64, cache.getSlots()); // as it was created
+            Assertions.assertEquals(42, cache.get("xlii"));
+        }
+    }
+
+    @Test
+    public void checkSingleWriter() throws IOException {
+        try (RomanResultCache writer = open(64); RomanResultCache reader = open(64)) {
+            Assertions.assertTrue(writer.isWriter());
+            Assertions.assertFalse(reader.isWriter());
+            writer.put("X", 10);
+            Assertions.assertEquals(10, reader.get("X")); // sees it once published
+            Assertions.assertFalse(reader.put("V", 5));
+            Assertions.assertEquals(5, reader.parse("V")); // still parses
+            Assertions.assertEquals(RomanResultCache.MISS, writer.get("V"));
+        }
+        try (RomanResultCache cache = open(64)) {
+            Assertions.assertTrue(cache.isWriter()); // the writer has gone
+        }
+    }
+
+    @Test
+    public void checkEvictsOldest() throws IOException {
+        Path file = directory.resolve("roman.cache");
+        try (RomanResultCache cache = open(64)) {
+            long size = Files.size(file);
+            for (int value = Roman.MIN_VALUE; value <= Roman.MAX_VALUE; value++)
+                cache.put(Roman.valueOf(value).toString(), value);
+            Assertions.assertEquals(size, Files.size(file));
+            Assertions.assertEquals(Roman.MAX_VALUE, cache.getPuts());
+            int found = 0;
+            for (int value = Roman.MIN_VALUE; value <= Roman.MAX_VALUE; value++) {
+                int result = cache.get(Roman.valueOf(value).toString());
+                if (result != RomanResultCache.MISS) {
+                    Assertions.assertEquals(value, result);
+                    found++;
+                }
+            }
+            Assertions.assertTrue(found <= 64);
+            Assertions.assertEquals(Roman.MAX_VALUE, cache.get(Roman.valueOf(Roman.MAX_VALUE).toString()));
+        }
+    }
+
+    @Test
+    public void checkReadsWhileWriting() throws IOException, InterruptedException {
+        try (RomanResultCache writer = open(256); RomanResultCache reader = open(256)) {
+            AtomicBoolean done = new AtomicBoolean();
+            AtomicReference<String> wrong = new AtomicReference<>();
+            Thread[] readers = new Thread[3];
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = new Thread(() -> {
+                    while (!done.get()) {
+                        for (int value = 1; value <= 500; value++) {
+                            int result = reader.get(Roman.valueOf(value).toString());
+                            if (result != RomanResultCache.MISS && result != value)
+                                wrong.set(value + " was " + result);
+                        }
+                    }
+                });
+                readers[i].start();
+            }
+            for (int round = 0; round < 20; round++)
+                for (int value = 1; value <= 500; value++)
+                    writer.put(Roman.valueOf(value).toString(), value);
+            done.set(true);
+            for (Thread thread : readers)
+                thread.join();
+            Assertions.assertNull(wrong.get());
+        }
+    }
+
+    @Test
+    public void checkRejectsOthers() throws IOException {
+        Path file = directory.resolve("other");
+        Files.writeString(file, "x".repeat(1000));
+        Assertions.assertThrows(IOException.class, () -> RomanResultCache.open(file, 64));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> open(100));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> open(4));
+    }
+
+    @Test
+    public void checkRecreatesHalfCreated() throws IOException {
+        Path file = directory.resolve("roman.cache");
+        try (RomanResultCache cache = open(64)) {
+            cache.put("XLII", 42);
+        }
+        // as if it crashed before publishing the magic number
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4), 0);
+        }
+        try (RomanResultCache cache = open(128)) {
+            Assertions.assertTrue(cache.isWriter());
+            Assertions.assertEquals(128, cache.getSlots());
+            Assertions.assertEquals(RomanResultCache.MISS, cache.get("XLII"));
+            Assertions.assertEquals(0, cache.getPuts());
+            Assertions.assertTrue(cache.put("XLII", 42));
+        }
+        try (RomanResultCache cache = open(64)) {
+            Assertions.assertEquals(42, cache.get("XLII"));
+        }
+    }
+
+    @Test
+    public void checkWaitsWhileCreated() throws IOException, InterruptedException {
+        Path file = directory.resolve("roman.cache");
+        AtomicReference<Object> opened = new AtomicReference<>();
+        Thread opener;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // another writer that has the lock but hasn't created it yet
+            FileLock lock = channel.lock(0, 64, false);
+            opener = new Thread(() -> {
+                try (RomanResultCache cache = open(64)) {
+                    opened.set(cache.isWriter());
+                } catch (IOException | RuntimeException e) {
+                    opened.set(e);
+                }
+            });
+            opener.start();
+            Thread.sleep(100);
+            Assertions.assertNull(opened.get()); // still waiting
+            lock.release(); // went away without creating it
+        }
+        opener.join();
+        Assertions.assertEquals(Boolean.TRUE, opened.get());
+    }
+}
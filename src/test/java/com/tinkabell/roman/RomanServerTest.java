@@ -0,0 +1,186 @@
+package com.tinkabell.roman;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+class RomanServerTest {
+
+    private RomanServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = new RomanServer(0);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    private static String error(String numerals) {
+        return "ERROR " + Assertions.assertThrows(NumberFormatException.class, () -> Roman.valueOf(numerals)).getMessage();
+    }
+
+    private static String read(SocketChannel channel, int lines) throws IOException {
+        StringBuilder answers = new StringBuilder();
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        while (answers.chars().filter(c -> c == '\n').count() < lines) {
+            buffer.clear();
+            if (channel.read(buffer) < 0)
+                break;
+            answers.append(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+        }
+        return answers.toString();
+    }
+
+    private static void send(SocketChannel channel, String lines) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    @Test
+    public void checkAnswer(){
+        ByteBuffer in = ByteBuffer.allocateDirect(64);
+        in.put("XIV\n mmxxiv \r\nbad\n\nMC".getBytes(StandardCharsets.US_ASCII)).flip();
+        ByteBuffer out = ByteBuffer.allocateDirect(RomanServer.BUFFER_SIZE);
+        RomanServer.answer(in, out);
+        out.flip();
+        byte[] answers = new byte[out.remaining()];
+        out.get(answers);
+        Assertions.assertEquals("14\n2024\n" + error("bad") + "\n" + error("") + "\n",
+                new String(answers, StandardCharsets.US_ASCII));
+        Assertions.assertEquals(2, in.remaining()); // the part line is left
+        Assertions.assertEquals('M', in.get(in.position()));
+    }
+
+    @Test
+    public void checkAnswersOnlyWhileRoom(){
+        ByteBuffer in = ByteBuffer.allocateDirect(64);
+        in.put("I\nII\n".getBytes(StandardCharsets.US_ASCII)).flip();
+        ByteBuffer out = ByteBuffer.allocateDirect(RomanServer.MAX_ANSWER + 1);
+        RomanServer.answer(in, out);
+        Assertions.assertEquals(2, out.position());
+        Assertions.assertEquals(3, in.remaining());
+    }
+
+    @Test
+    public void checkConnection() throws IOException {
+        try (SocketChannel channel = SocketChannel.open(server.getAddress())) {
+            send(channel, "MCMXCIV\nmmmm\n");
+            send(channel, "IIV\nX");
+            send(channel, "L\n");
+            Assertions.assertEquals("1994\n4000\n" + error("IIV") + "\n40\n", read(channel, 4));
+        }
+    }
+
+    @Test
+    public void checkCloseHangsUpOnClients() throws IOException {
+        try (SocketChannel channel = SocketChannel.open(server.getAddress())) {
+            send(channel, "X\n");
+            Assertions.assertEquals("10\n", read(channel, 1)); // so it has been accepted
+            server.close();
+            Assertions.assertTimeoutPreemptively(Duration.ofSeconds(30),
+                    () -> Assertions.assertEquals(-1, channel.read(ByteBuffer.allocate(16))));
+        }
+    }
+
+    @Test
+    public void checkAllValues() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int value = Roman.MIN_VALUE; value <= Roman.MAX_VALUE; value++) {
+            lines.append(Roman.valueOf(value)).append('\n');
+            expected.append(value).append('\n');
+        }
+        try (SocketChannel channel = SocketChannel.open(server.getAddress())) {
+            send(channel, lines.toString());
+            Assertions.assertEquals(expected.toString(), read(channel, Roman.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void checkSlowReaderOnlyHoldsUpItself() throws IOException {
+        try (SocketChannel slow = SocketChannel.open(server.getAddress());
+             SocketChannel other = SocketChannel.open(server.getAddress())) {
+            // far more than the buffers hold, and never read
+            slow.configureBlocking(false);
+            ByteBuffer flood = ByteBuffer.wrap("MMMDCCCLXXXVIII\n".repeat(2_000_000).getBytes(StandardCharsets.US_ASCII));
+            int stalled = 0;
+            while (flood.hasRemaining() && stalled < 100) {
+                if (slow.write(flood) == 0) {
+                    stalled++;
+                    Thread.yield();
+                }
+            }
+            Assertions.assertTrue(flood.hasRemaining());
+            send(other, "V\n");
+            Assertions.assertEquals("5\n", read(other, 1));
+        }
+    }
+
+    @Test
+    public void checkClosesOnOverlongLine() throws IOException {
+        try (SocketChannel channel = SocketChannel.open(server.getAddress())) {
+            send(channel, "I".repeat(RomanServer.BUFFER_SIZE + 10));
+            Assertions.assertEquals("", read(channel, 1));
+        }
+    }
+
+    /**
+     * Many lines pipelined on several connections, all answered
+     * (RomanClient's main shows how fast).
+     */
+    @Test
+    public void checkPipelinedConnections() throws IOException {
+        int connections = 4;
+        long lines = 250_000;
+        RomanWorkload expected = new RomanWorkload(40).invalid(0.05);
+        long expectedErrors = 0;
+        for (int i = 0; i < 10_000; i++) {
+            try {
+                Roman.valueOf(expected.next());
+            } catch (NumberFormatException e) {
+                expectedErrors++;
+            }
+        }
+        long errors = RomanClient.run(server.getAddress(), connections, lines, new RomanWorkload(40).invalid(0.05));
+        Assertions.assertEquals(connections * expectedErrors * (lines / 10_000), errors);
+    }
+
+    /**
+     * A server that hangs up on every connection should make the client
+     * fail, not leave it waiting for answers.
+     */
+    @Test
+    public void checkClientFailsWhenHungUpOn() throws IOException {
+        try (ServerSocketChannel hangUp = ServerSocketChannel.open()) {
+            hangUp.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            Thread acceptor = new Thread(() -> {
+                try {
+                    while (true)
+                        hangUp.accept().close();
+                } catch (IOException e) {
+                    // closed, so stop
+                }
+            }, "hang-up");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            InetSocketAddress address = (InetSocketAddress) hangUp.getLocalAddress();
+            Assertions.assertTimeoutPreemptively(Duration.ofSeconds(30), () -> Assertions.assertThrows(IOException.class,
+                    () -> RomanClient.run(address, 4, 1_000_000, new RomanWorkload(40))));
+        }
+    }
+}
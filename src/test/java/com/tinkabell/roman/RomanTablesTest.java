@@ -0,0 +1,53 @@
+package com.tinkabell.roman;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RomanTablesTest {
+
+    private static final String alphabet = "IVXLCDMi z";
+
+    @Test
+    public void checkFormat(){
+        for (int value = Roman.MIN_VALUE; value <= Roman.MAX_VALUE; value++)
+            Assertions.assertEquals(Roman.format(value), RomanTables.format(value));
+    }
+
+    @Test
+    public void checkParseCanonical(){
+        for (int value = Roman.MIN_VALUE; value <= Roman.MAX_VALUE; value++)
+            Assertions.assertEquals(value, RomanTables.parse(RomanTables.format(value)));
+    }
+
+    /**
+     * Check every string of up to 5 characters from the alphabet
+     * parses the same as RomanNumber.parse().
+     */
+    @Test
+    public void checkParseAgreesWithRomanNumber(){
+        AllStrings.forEach(alphabet, 0, 5, s -> {
+            int expected;
+            try {
+                expected = RomanNumber.parse(s);
+            } catch (NumberFormatException e) {
+                expected = 0;
+            }
+            Assertions.assertEquals(expected, RomanTables.parse(s), s);
+        });
+    }
+
+    /**
+     * A cold Roman, as RomanStartupBenchmark initialises it, should
+     * hand out the same numerals from its tables as it works out without.
+     */
+    @Test
+    public void checkColdRomanAgreesWithFormat() throws Exception {
+        RomanStartupBenchmark.Initialised with = RomanStartupBenchmark.withTables();
+        RomanStartupBenchmark.Initialised without = RomanStartupBenchmark.withoutTables();
+        Assertions.assertNotSame(Roman.class, with.roman());
+        Assertions.assertNotSame(with.roman(), without.roman());
+        for (int value = Roman.MIN_VALUE; value <= Roman.MAX_VALUE; value++)
+            Assertions.assertEquals(without.numerals()[value], with.numerals()[value]);
+    }
+
+}
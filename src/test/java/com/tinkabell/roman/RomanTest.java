@@ -0,0 +1,63 @@
+package com.tinkabell.roman;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class RomanTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "1, I",
+            "4, IV",
+            "9, IX",
+            "14, XIV",
+            "444, CDXLIV",
+            "999, CMXCIX",
+            "1959, MCMLIX",
+            "2021, MMXXI",
+            "9999, MMMMMMMMMCMXCIX"
+    })
+    public void checkToString(int value, String expected){
+        Assertions.assertEquals(expected, Roman.valueOf(value).toString());
+    }
+
+    @Test
+    public void checkInterned(){
+        Assertions.assertSame(Roman.valueOf(4), Roman.valueOf("IV"));
+        Assertions.assertSame(Roman.valueOf(4), Roman.valueOf(" iiii "));
+        Assertions.assertSame(Roman.valueOf("MCMLIX"), Roman.valueOf(new StringBuilder("mcmlix")));
+    }
+
+    @Test
+    public void checkRoundTrip(){
+        for (int value = Roman.MIN_VALUE; value <= Roman.MAX_VALUE; value++) {
+            Roman roman = Roman.valueOf(value);
+            Assertions.assertEquals(value, roman.intValue());
+            Assertions.assertEquals(value, RomanNumber.parse(roman.toString()));
+        }
+    }
+
+    @Test
+    public void checkOrdering(){
+        Assertions.assertTrue(Roman.valueOf("IX").compareTo(Roman.valueOf("X")) < 0);
+        Assertions.assertEquals(0, Roman.valueOf("X").compareTo(Roman.valueOf(10)));
+        Assertions.assertEquals(Roman.valueOf(10), Roman.valueOf("x"));
+        Assertions.assertEquals(10, Roman.valueOf("X").hashCode());
+    }
+
+    @Test
+    public void checkOutOfRange(){
+        Assertions.assertThrows(NumberFormatException.class,
+                () -> Roman.valueOf(0),
+                "NumberFormatException was expected as there is no zero!");
+        Assertions.assertThrows(NumberFormatException.class,
+                () -> Roman.valueOf(10000),
+                "NumberFormatException was expected as too big!");
+        Assertions.assertThrows(NumberFormatException.class,
+                () -> Roman.valueOf("z"),
+                "NumberFormatException was expected");
+    }
+
+}
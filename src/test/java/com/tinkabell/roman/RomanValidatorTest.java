@@ -0,0 +1,68 @@
+package com.tinkabell.roman;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+
+class RomanValidatorTest {
+
+    private static final String alphabet = "IVXLCDMi\u0131 "; // and a dotless i
+
+    private static boolean parses(String s) {
+        try {
+            RomanNumber.parse(s);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check every string of up to 5 characters from the alphabet.
+     */
+    @Test
+    public void checkAgreesWithParse(){
+        AllStrings.forEach(alphabet, 0, 5, s -> {
+            boolean lenient = parses(s);
+            Assertions.assertEquals(lenient, RomanValidator.isValid(s), s);
+            if (s.indexOf('\u0131') < 0) { // only ascii as bytes
+                byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+                Assertions.assertEquals(lenient, RomanValidator.isValid(bytes, 0, bytes.length), s);
+            }
+            boolean canonical = lenient && s.equals(Roman.valueOf(s).toString())
+                    && Roman.valueOf(s).intValue() < 4000;
+            Assertions.assertEquals(canonical, RomanValidator.isValid(s, true), s);
+        });
+    }
+
+    @Test
+    public void checkCanonical(){
+        for (int value = 1; value < 4000; value++)
+            Assertions.assertTrue(RomanValidator.isValid(Roman.valueOf(value).toString(), true));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"MMMMMMMMMCMXCIX", " mcmlix ", "IIIIIIIII", "VIIII"})
+    public void checkLenientOnly(String roman){
+        Assertions.assertTrue(RomanValidator.isValid(roman));
+        Assertions.assertFalse(RomanValidator.isValid(roman, true));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", " ", "z", "IIIIIIIIII", "XXL", "CCM", "I I", "IVI", "VV", "MCMLIX!"})
+    public void checkInvalid(String roman){
+        Assertions.assertFalse(RomanValidator.isValid(roman));
+        Assertions.assertFalse(RomanValidator.isValid(roman, true));
+    }
+
+    @Test
+    public void checkOffset(){
+        byte[] bytes = "zzXIVzz".getBytes(StandardCharsets.US_ASCII);
+        Assertions.assertTrue(RomanValidator.isValid(bytes, 2, 3));
+        Assertions.assertFalse(RomanValidator.isValid(bytes, 1, 3));
+    }
+
+}
@@ -0,0 +1,123 @@
+package com.tinkabell.roman;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+class RomanWorkloadTest {
+
+    @Test
+    public void checkDeterministic() throws IOException {
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        new RomanWorkload(42).invalid(0.1).lowercase(0.5).whitespace(0.2).additive(0.3).write(first, 10_000);
+        new RomanWorkload(42).invalid(0.1).lowercase(0.5).whitespace(0.2).additive(0.3).write(second, 10_000);
+        Assertions.assertArrayEquals(first.toByteArray(), second.toByteArray());
+        ByteArrayOutputStream other = new ByteArrayOutputStream();
+        new RomanWorkload(43).invalid(0.1).lowercase(0.5).whitespace(0.2).additive(0.3).write(other, 10_000);
+        Assertions.assertNotEquals(first.toString(), other.toString());
+    }
+
+    @Test
+    public void checkValidRecords(){
+        RomanWorkload workload = new RomanWorkload(1).maxValue(Roman.MAX_VALUE)
+                .lowercase(0.5).whitespace(0.5).additive(0.5).skew(2);
+        int additive = 0;
+        for (int i = 0; i < 100_000; i++) {
+            String record = workload.next();
+            int value = RomanNumber.parse(record);
+            Assertions.assertEquals(value, RomanNumeral.parse(record), record);
+            if (!record.trim().equalsIgnoreCase(Roman.valueOf(value).toString()))
+                additive++;
+        }
+        Assertions.assertTrue(additive > 0, "Expected some additive forms");
+    }
+
+    @Test
+    public void checkSkew(){
+        RomanWorkload uniform = new RomanWorkload(1);
+        RomanWorkload skewed = new RomanWorkload(1).skew(3);
+        long uniformTotal = 0;
+        long skewedTotal = 0;
+        for (int i = 0; i < 10_000; i++) {
+            uniformTotal += RomanNumber.parse(uniform.next());
+            skewedTotal += RomanNumber.parse(skewed.next());
+        }
+        Assertions.assertTrue(skewedTotal < uniformTotal / 2);
+    }
+
+    /**
+     * Check each kind of invalid record, on its own, fails at the character
+     * expected for its kind, for the reason expected.
+     * The kinds that are out of sequence all fail on their last numeral,
+     * with everything before it a valid start of a number.
+     */
+    @Test
+    public void checkInvalidRecords(){
+        RomanWorkload workload = new RomanWorkload(7).lowercase(0.5).whitespace(0.5);
+        for (RomanWorkload.Invalid kind : RomanWorkload.Invalid.values()) {
+            for (int i = 0; i < 10_000; i++) {
+                String record = workload.next(kind);
+                String numerals = record.trim().toUpperCase();
+                int expected = switch (kind) {
+                    case INVALID_CHARACTER -> firstNotNumeral(numerals);
+                    case EMPTY -> numerals.length(); // fails at the end
+                    default -> numerals.length() - 1;
+                };
+                Assertions.assertTrue(expected >= 0, kind + ": " + record);
+                RomanNumber number = new RomanNumber();
+                for (int j = 0; j < expected; j++)
+                    number.nextNumeral(numerals.charAt(j));
+                NumberFormatException thrown = Assertions.assertThrows(NumberFormatException.class,
+                        () -> {
+                            if (kind == RomanWorkload.Invalid.EMPTY)
+                                RomanNumber.parse(record);
+                            else
+                                number.nextNumeral(numerals.charAt(expected));
+                        }, kind + ": " + record);
+                String message = thrown.getMessage();
+                Assertions.assertTrue(message.contains(kind.getMessage()), kind + ": " + record + ": " + message);
+                if (kind == RomanWorkload.Invalid.INVALID_CHARACTER)
+                    Assertions.assertTrue(message.startsWith("Invalid character: " + numerals.charAt(expected)), message);
+                else if (kind != RomanWorkload.Invalid.EMPTY)
+                    Assertions.assertEquals(numerals.charAt(expected) + " " + kind.getMessage(), message);
+            }
+        }
+    }
+
+    private static int firstNotNumeral(String numerals) {
+        for (int i = 0; i < numerals.length(); i++)
+            if ("IVXLCDM".indexOf(numerals.charAt(i)) < 0)
+                return i;
+        return -1;
+    }
+
+    /**
+     * Check a mix of invalid records is all invalid, with about its share of each kind (as seen by the empty ones).
+     */
+    @Test
+    public void checkInvalidMix(){
+        RomanWorkload workload = new RomanWorkload(7).invalid(1);
+        int empty = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String record = workload.next();
+            Assertions.assertThrows(NumberFormatException.class, () -> RomanNumber.parse(record), record);
+            if (record.isBlank())
+                empty++;
+        }
+        int kinds = RomanWorkload.Invalid.values().length;
+        Assertions.assertTrue(empty > 10_000 / kinds / 2 && empty < 2 * 10_000 / kinds, "Empty: " + empty);
+    }
+
+    @Test
+    public void checkWrite() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        RomanWorkload workload = new RomanWorkload(3).invalid(0.05).lowercase(0.3).whitespace(0.1).additive(0.1);
+        long bytes = workload.write(output, 300_000); // more than one buffer full
+        Assertions.assertEquals(output.size(), bytes);
+        Assertions.assertEquals(300_000, output.toString().lines().count());
+    }
+
+}